@@ -0,0 +1,71 @@
+package benchmark.jmh;
+
+import benchmark.Benchmark;
+import models.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Đo Account.addTransaction và Account.getTransactionsByDateRange (khoảng 30 ngày ngẫu nhiên)
+ * Giao dịch thêm trong một vòng đo được xóa lại sau vòng đó để kích thước bảng không đổi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class AccountBenchmark {
+    private static final LocalDate FIRST = LocalDate.of(2015, 1, 1);
+    private static final int SPAN_DAYS = 10 * 365;
+    
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+    
+    private Account account;
+    private Category food;
+    private Random random;
+    private List<String> added;
+    
+    @Setup
+    public void setup() {
+        account = Benchmark.buildAccount(size);
+        food = account.getCategoryByName("Ăn uống");
+        random = new Random(42);
+        added = new ArrayList<>();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void removeAdded() {
+        added.forEach(account::removeTransaction);
+        added.clear();
+    }
+    
+    @org.openjdk.jmh.annotations.Benchmark
+    public void addTransaction() {
+        String id = "B" + added.size();
+        account.addTransaction(new Expense(id, FIRST.plusDays(random.nextInt(SPAN_DAYS)), 50000, food, "bench"));
+        added.add(id);
+    }
+    
+    @org.openjdk.jmh.annotations.Benchmark
+    public List<Transaction> getTransactionsByDateRange() {
+        LocalDate from = FIRST.plusDays(random.nextInt(SPAN_DAYS - 30));
+        return account.getTransactionsByDateRange(from, from.plusDays(29));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package benchmark.jmh;
+
+import benchmark.Benchmark;
+import models.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Đo FileManager.loadData: đọc account.txt + transactions.txt và dựng lại toàn bộ chỉ mục
+ * Mỗi lần gọi là một lần đọc cả thư mục dữ liệu (không có snapshot.bin nên phải parse file text).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class LoadDataBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+    
+    private File dataDir;
+    
+    @Setup
+    public void setup() throws IOException {
+        dataDir = Benchmark.writeDataDir(Benchmark.buildAccount(size));
+    }
+    
+    @org.openjdk.jmh.annotations.Benchmark
+    public Account loadData() {
+        return Benchmark.loadData(dataDir);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package benchmark.jmh;
+
+import benchmark.Benchmark;
+import services.*;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Đo ReportService.generateCategoryReport cho khoảng 1 năm ngẫu nhiên
+ * Cache báo cáo bị tắt (dung lượng 0) để mỗi lần gọi đều tính lại, không đo lần tra cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ReportBenchmark {
+    private static final LocalDate FIRST = LocalDate.of(2015, 1, 1);
+    private static final int SPAN_DAYS = 10 * 365;
+    
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+    
+    private ReportService reportService;
+    private Random random;
+    
+    @Setup
+    public void setup() {
+        reportService = new ReportService(Benchmark.buildAccount(size), 0);
+        random = new Random(42);
+    }
+    
+    @org.openjdk.jmh.annotations.Benchmark
+    public String generateCategoryReport() {
+        LocalDate from = FIRST.plusDays(random.nextInt(SPAN_DAYS - 365));
+        return reportService.generateCategoryReport(from, from.plusDays(364));
+    }
+}
\ No newline at end of file
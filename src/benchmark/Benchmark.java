@@ -0,0 +1,187 @@
+package benchmark;
+
+import models.*;
+import services.*;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Bộ đo hiệu năng cho các đường xử lý chính: đọc file, thêm giao dịch,
+ * truy vấn theo ngày và báo cáo theo danh mục.
+ * Với mỗi phép đo: chạy làm nóng (warmup) rồi đo thời gian trung bình mỗi thao tác
+ * và số byte cấp phát mỗi thao tác (tương tự -prof gc của JMH).
+ *
+ * Cách chạy (sau khi biên dịch vào thư mục out):
+ *   java -Xmx8g -cp out benchmark.Benchmark 10000 1000000 10000000
+ * Bản JMH của cùng các phép đo nằm trong module jmh (xem pom.xml), dùng chung buildAccount / writeDataDir.
+ */
+public class Benchmark {
+    private static final long SEED = 42;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURE_ITERATIONS = 5;
+    private static final int OPS_PER_ITERATION = 1000;
+    
+    // Giữ kết quả để JIT không loại bỏ đoạn code được đo
+    private static volatile long sink;
+    
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    
+    public static void main(String[] args) throws IOException {
+        int[] sizes = {10_000, 1_000_000, 10_000_000};
+        if (args.length > 0) {
+            sizes = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        }
+        
+        System.out.printf("%-40s %10s %14s %14s %14s%n", "Benchmark", "Rows", "ns/op", "ops/s", "B/op");
+        for (int size : sizes) {
+            runSuite(size);
+        }
+        System.out.println("(sink = " + sink + ")");
+    }
+    
+    private static void runSuite(int size) throws IOException {
+        Account account = buildAccount(size);
+        LocalDate first = LocalDate.of(2015, 1, 1);
+        int spanDays = 10 * 365;
+        
+        // Ghi thư mục dữ liệu tạm để đo đường đọc
+        File dataDir = writeDataDir(account);
+        
+        // 1. FileManager.loadData với account.txt + transactions.txt (mỗi lần đo là đọc cả thư mục)
+        measure("FileManager.loadData (transactions.txt)", size, 1, () -> {
+            sink += loadData(dataDir).getTransactionCount();
+        });
+        
+        // 2. Thêm giao dịch (xóa lại ngoài phần đo để kích thước không đổi)
+        Category food = account.getCategoryByName("Ăn uống");
+        Random random = new Random(SEED);
+        List<String> added = new ArrayList<>();
+        measure("Account.addTransaction", size, OPS_PER_ITERATION, () -> {
+            String id = "B" + added.size();
+            LocalDate date = first.plusDays(random.nextInt(spanDays));
+            account.addTransaction(new Expense(id, date, 50000, food, "bench"));
+            added.add(id);
+        }, () -> {
+            added.forEach(account::removeTransaction);
+            added.clear();
+        });
+        
+        // 3. Truy vấn khoảng 30 ngày ngẫu nhiên
+        measure("Account.getTransactionsByDateRange(30d)", size, OPS_PER_ITERATION, () -> {
+            LocalDate from = first.plusDays(random.nextInt(spanDays - 30));
+            sink += account.getTransactionsByDateRange(from, from.plusDays(29)).size();
+        });
+        
+        // 4. Báo cáo theo danh mục cho 1 năm (tắt cache để mỗi lần đo đều tính lại báo cáo)
+        ReportService reportService = new ReportService(account, 0);
+        measure("ReportService.generateCategoryReport(1y)", size, 10, () -> {
+            LocalDate from = first.plusDays(random.nextInt(spanDays - 365));
+            sink += reportService.generateCategoryReport(from, from.plusDays(364)).length();
+        });
+    }
+    
+    /**
+     * Tạo tài khoản với dữ liệu ngẫu nhiên cố định theo SEED trong 10 năm
+     */
+    public static Account buildAccount(int size) {
+        Account account = new Account("bench", 0);
+        Random random = new Random(SEED);
+        List<Category> income = account.getCategoriesByType("THU");
+        List<Category> expense = account.getCategoriesByType("CHI");
+        LocalDate first = LocalDate.of(2015, 1, 1);
+        
+        for (int i = 0; i < size; i++) {
+            String id = account.generateTransactionId();
+            LocalDate date = first.plusDays(random.nextInt(10 * 365));
+            if (random.nextInt(10) == 0) {
+                Category category = income.get(random.nextInt(income.size()));
+                account.restoreTransaction(new Income(id, date, 1_000_000 + random.nextInt(20_000_000), category, "thu " + i));
+            } else {
+                Category category = expense.get(random.nextInt(expense.size()));
+                account.restoreTransaction(new Expense(id, date, 10_000 + random.nextInt(500_000), category, "chi " + i));
+            }
+        }
+        return account;
+    }
+    
+    /**
+     * Lưu tài khoản ra một thư mục dữ liệu tạm (account.txt + transactions.txt, không có snapshot)
+     * để loadData phải đọc và parse file text; thư mục bị xóa khi JVM thoát
+     */
+    public static File writeDataDir(Account account) throws IOException {
+        File dir = Files.createTempDirectory("pfm-bench").toFile();
+        dir.deleteOnExit();
+        FileManager fileManager = new FileManager(dir.getPath());
+        fileManager.setSnapshotMode(false);
+        fileManager.saveData(account);
+        
+        File[] files = dir.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            file.deleteOnExit();
+        }
+        return dir;
+    }
+    
+    /**
+     * FileManager.loadData trên thư mục của writeDataDir, bỏ các dòng thông báo in ra console
+     */
+    public static Account loadData(File dataDir) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return new FileManager(dataDir.getPath()).loadData();
+        } finally {
+            System.setOut(out);
+        }
+    }
+    
+    /**
+     * Tổng số byte đã cấp phát của mọi luồng (tính cả luồng fork-join khi đọc song song)
+     */
+    private static long allocatedBytes() {
+        long total = 0;
+        for (long bytes : THREAD_BEAN.getThreadAllocatedBytes(THREAD_BEAN.getAllThreadIds())) {
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+    
+    private static void measure(String name, int rows, int opsPerIteration, Runnable op) {
+        measure(name, rows, opsPerIteration, op, () -> { });
+    }
+    
+    /**
+     * Đo một thao tác: warmup rồi đo, in ns/op, ops/s và số byte cấp phát mỗi thao tác
+     * @param reset chạy sau mỗi vòng, không tính vào thời gian đo
+     */
+    private static void measure(String name, int rows, int opsPerIteration, Runnable op, Runnable reset) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            for (int j = 0; j < opsPerIteration; j++) {
+                op.run();
+            }
+            reset.run();
+        }
+        
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            for (int j = 0; j < opsPerIteration; j++) {
+                op.run();
+            }
+            totalNanos += System.nanoTime() - start;
+            totalBytes += allocatedBytes() - bytesBefore;
+            reset.run();
+        }
+        
+        long ops = (long) MEASURE_ITERATIONS * opsPerIteration;
+        double nanosPerOp = (double) totalNanos / ops;
+        System.out.printf("%-40s %10d %14.0f %14.1f %14d%n",
+            name, rows, nanosPerOp, 1_000_000_000.0 / nanosPerOp, totalBytes / ops);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,214 @@
+package benchmark;
+
+import models.*;
+import services.ColumnarStore;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Sinh dữ liệu giao dịch giả lập có tính tất định (cùng seed -> cùng dữ liệu) để thử ở quy mô lớn.
+ * Dữ liệu trải đều nhiều năm theo thứ tự ngày, dùng các danh mục mặc định của Account,
+ * số tiền phân bố lệch (log-normal) và ghi chú lấy ngẫu nhiên theo danh mục.
+ * Từng dòng được ghi thẳng ra file nên sinh 50 triệu dòng cũng không giữ 50 triệu đối tượng trong bộ nhớ.
+ *
+ * Cách chạy:
+ *   java -cp out benchmark.LedgerGenerator <số dòng> [số năm] [seed] [thư mục] [text|columnar|all]
+ *   vd: java -cp out benchmark.LedgerGenerator 50000000 20 42 data text
+ */
+public class LedgerGenerator {
+    private static final LocalDate START_DATE = LocalDate.of(2005, 1, 1);
+    private static final int INCOME_PERCENT = 8;   // Tỉ lệ giao dịch thu nhập
+    
+    // Tỉ trọng chọn danh mục chi tiêu (tên chưa có ở đây nhận tỉ trọng 1)
+    private static final Map<String, Integer> EXPENSE_WEIGHTS = Map.of(
+        "Ăn uống", 10, "Di chuyển", 5, "Mua sắm", 3, "Giải trí", 2, "Học tập", 1, "Sức khỏe", 1);
+    private static final Map<String, Integer> INCOME_WEIGHTS = Map.of(
+        "Lương", 6, "Thu nhập phụ", 3, "Thưởng", 1);
+    
+    // Số tiền trung vị (VNĐ) của từng danh mục
+    private static final Map<String, Long> MEDIAN_AMOUNTS = Map.of(
+        "Lương", 15_000_000L, "Thưởng", 5_000_000L, "Thu nhập phụ", 2_000_000L,
+        "Ăn uống", 60_000L, "Di chuyển", 40_000L, "Mua sắm", 300_000L,
+        "Giải trí", 150_000L, "Học tập", 500_000L, "Sức khỏe", 250_000L);
+    private static final long DEFAULT_MEDIAN = 100_000L;
+    
+    private static final Map<String, String[]> NOTES = Map.of(
+        "Lương", new String[] {"Lương tháng", "Lương công ty", "Lương part-time"},
+        "Thưởng", new String[] {"Thưởng dự án", "Thưởng Tết", "Thưởng KPI"},
+        "Thu nhập phụ", new String[] {"Dạy kèm", "Bán đồ cũ", "Freelance"},
+        "Ăn uống", new String[] {"Ăn sáng", "Cơm trưa", "Cà phê", "Trà sữa", "Ăn tối", "Đi chợ"},
+        "Di chuyển", new String[] {"Đổ xăng", "Grab", "Gửi xe", "Vé xe buýt"},
+        "Mua sắm", new String[] {"Quần áo", "Đồ gia dụng", "Mua online", "Siêu thị"},
+        "Giải trí", new String[] {"Xem phim", "Karaoke", "Du lịch", "Game"},
+        "Học tập", new String[] {"Học phí", "Mua sách", "Khóa học online"},
+        "Sức khỏe", new String[] {"Thuốc", "Khám bệnh", "Tập gym"});
+    private static final String[] DEFAULT_NOTES = {"Khác", "Linh tinh"};
+    
+    private final long seed;
+    private final int years;
+    private final List<Category> categories;
+    private final Category[] incomePicks;    // Danh mục lặp lại theo tỉ trọng để chọn O(1)
+    private final Category[] expensePicks;
+    private final String accountName;
+    
+    public LedgerGenerator(long seed, int years) {
+        this.seed = seed;
+        this.years = years;
+        
+        // Lấy danh mục mặc định từ một tài khoản mới để luôn khớp với Account
+        Account template = new Account("Tài khoản giả lập", 0);
+        this.accountName = template.getName();
+        this.categories = template.getCategories();
+        this.incomePicks = weightedPicks(template.getCategoriesByType("THU"), INCOME_WEIGHTS);
+        this.expensePicks = weightedPicks(template.getCategoriesByType("CHI"), EXPENSE_WEIGHTS);
+    }
+    
+    /**
+     * Nhận từng giao dịch được sinh ra (không tạo đối tượng Transaction)
+     */
+    private interface RowSink {
+        void accept(String id, int epochDay, long amountMinor, Category category, String note) throws IOException;
+    }
+    
+    /**
+     * Sinh các dòng theo thứ tự ngày, ID dạng T0001, T0002, ...
+     * @return số dư cuối cùng (xu)
+     */
+    private long generate(long rows, RowSink sink) throws IOException {
+        Random random = new Random(seed);
+        long startDay = START_DATE.toEpochDay();
+        long spanDays = START_DATE.plusYears(years).toEpochDay() - startDay;
+        long balance = 0;
+        
+        for (long i = 0; i < rows; i++) {
+            int day = (int) (startDay + i * spanDays / rows);
+            boolean income = random.nextInt(100) < INCOME_PERCENT;
+            Category category = income
+                ? incomePicks[random.nextInt(incomePicks.length)]
+                : expensePicks[random.nextInt(expensePicks.length)];
+            
+            // Log-normal: phần lớn quanh trung vị, một số ít rất lớn; làm tròn đến 1.000đ
+            long median = MEDIAN_AMOUNTS.getOrDefault(category.getName(), DEFAULT_MEDIAN);
+            long amount = Math.max(1000, Math.round(median * Math.exp(random.nextGaussian() * 0.8) / 1000) * 1000);
+            
+            String[] notes = NOTES.getOrDefault(category.getName(), DEFAULT_NOTES);
+            String note = notes[random.nextInt(notes.length)];
+            if (random.nextInt(4) == 0) {
+                note = note + " #" + (random.nextInt(500) + 1);
+            }
+            
+            long amountMinor = amount * 100;
+            balance += income ? amountMinor : -amountMinor;
+            sink.accept(transactionId(i + 1), day, amountMinor, category, note);
+        }
+        return balance;
+    }
+    
+    /**
+     * Ghi ra transactions.txt (định dạng của FileManager: TYPE|ID|DATE|AMOUNT|CATEGORY|NOTE)
+     */
+    public long writeText(long rows, File file) throws IOException {
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            StringBuilder line = new StringBuilder(128);
+            return generate(rows, (id, epochDay, amountMinor, category, note) -> {
+                line.setLength(0);
+                line.append(category.getType()).append('|').append(id).append('|');
+                appendDate(line, LocalDate.ofEpochDay(epochDay));
+                line.append('|').append(amountMinor / 100).append('.');
+                appendTwoDigits(line, (int) (amountMinor % 100));
+                line.append('|').append(category.getName()).append('|').append(note).append('\n');
+                writer.append(line);
+            });
+        }
+    }
+    
+    /**
+     * Ghi ra file columnar (transactions.col)
+     */
+    public long writeColumnar(long rows, File file) throws IOException {
+        if (rows > Integer.MAX_VALUE) {
+            throw new IOException("File columnar chỉ chứa tối đa " + Integer.MAX_VALUE + " dòng");
+        }
+        try (ColumnarStore.StreamWriter writer = new ColumnarStore.StreamWriter(file, categories)) {
+            return generate(rows, writer::append);
+        }
+    }
+    
+    /**
+     * Ghi account.txt (tên, số dư, ngân sách danh mục) để thư mục dữ liệu đọc được ngay
+     */
+    public void writeAccount(long balanceMinor, File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            writer.println(accountName);
+            writer.println(balanceMinor / 100.0);
+            for (Category c : categories) {
+                writer.println(String.format("CATEGORY|%s|%s|%.2f", c.getName(), c.getType(), c.getBudget()));
+            }
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Cách dùng: LedgerGenerator <số dòng> [số năm] [seed] [thư mục] [text|columnar|all]");
+            return;
+        }
+        
+        long rows = Long.parseLong(args[0]);
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        File dir = new File(args.length > 3 ? args[3] : "data");
+        String format = args.length > 4 ? args[4] : "text";
+        dir.mkdirs();
+        
+        LedgerGenerator generator = new LedgerGenerator(seed, years);
+        long start = System.nanoTime();
+        long balance = 0;
+        
+        if (format.equals("text") || format.equals("all")) {
+            balance = generator.writeText(rows, new File(dir, "transactions.txt"));
+            System.out.println("✓ Đã ghi " + rows + " dòng vào transactions.txt");
+        }
+        if (format.equals("columnar") || format.equals("all")) {
+            balance = generator.writeColumnar(rows, new File(dir, "transactions.col"));
+            System.out.println("✓ Đã ghi " + rows + " dòng vào transactions.col");
+        }
+        generator.writeAccount(balance, new File(dir, "account.txt"));
+        
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  Thời gian: %.1f giây (%.0f dòng/giây)%n", seconds, rows / seconds);
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    private static Category[] weightedPicks(List<Category> candidates, Map<String, Integer> weights) {
+        List<Category> picks = new ArrayList<>();
+        for (Category c : candidates) {
+            int weight = weights.getOrDefault(c.getName(), 1);
+            for (int i = 0; i < weight; i++) {
+                picks.add(c);
+            }
+        }
+        return picks.toArray(new Category[0]);
+    }
+    
+    private static String transactionId(long number) {
+        String digits = Long.toString(number);
+        return digits.length() >= 4 ? "T" + digits : "T" + "0000".substring(digits.length()) + digits;
+    }
+    
+    private static void appendDate(StringBuilder sb, LocalDate date) {
+        sb.append(date.getYear()).append('-');
+        appendTwoDigits(sb, date.getMonthValue());
+        sb.append('-');
+        appendTwoDigits(sb, date.getDayOfMonth());
+    }
+    
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+}
\ No newline at end of file
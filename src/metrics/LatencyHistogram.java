@@ -0,0 +1,155 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Histogram độ trễ (nano giây) không dùng khóa, ghi được từ nhiều luồng cùng lúc
+ * Mỗi khoảng [2^k, 2^(k+1)) chia thành 8 ô bằng nhau nên phân vị (p50, p99) sai lệch tối đa 12.5%,
+ * bộ nhớ cố định khoảng 4 KB dù đo bao nhiêu lần. Ghi một giá trị chỉ tốn vài phép cộng nguyên tử.
+ *
+ * Cách dùng:
+ *   long start = System.nanoTime();
+ *   try { ... } finally { histogram.recordSince(start); }
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final String name;
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder totalNanos;
+    private final AtomicLong maxNanos;
+    
+    LatencyHistogram(String name) {
+        this.name = name;
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new AtomicLong();
+    }
+    
+    /**
+     * Ghi một lần đo
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;   // nanoTime không lùi, nhưng phòng trường hợp đồng hồ lỗi
+        }
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // Luồng khác vừa ghi giá trị lớn nhất mới, thử lại
+        }
+    }
+    
+    /**
+     * Ghi thời gian từ startNanos (System.nanoTime()) đến bây giờ
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Chạy action và ghi thời gian chạy (kể cả khi action ném ngoại lệ)
+     */
+    public <T> T time(Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            recordSince(start);
+        }
+    }
+    
+    /**
+     * Phân vị q (0..1) của các lần đo, tính bằng nano giây (cận trên của ô chứa phân vị)
+     * @return 0 nếu chưa có lần đo nào
+     */
+    public long getPercentileNanos(double q) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        
+        long target = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+    
+    /**
+     * Xóa các lần đo đã ghi
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+    
+    // ===== GETTERS =====
+    public String getName() {
+        return name;
+    }
+    
+    public long getCount() {
+        return count.sum();
+    }
+    
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+    
+    public long getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / n;
+    }
+    
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    /**
+     * Ô chứa giá trị: giá trị < 8 có ô riêng, lớn hơn thì theo 3 bit cao nhất sau bit dẫn đầu
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+    
+    /**
+     * Giá trị lớn nhất thuộc ô index
+     */
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
\ No newline at end of file
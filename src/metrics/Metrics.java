@@ -0,0 +1,155 @@
+package metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Nơi đăng ký chung các số đo của chương trình: histogram độ trễ (timer) và bộ đếm (counter)
+ * Các lớp giữ timer/counter của mình trong hằng static (Metrics.timer("file.load")) nên
+ * đo một thao tác không phải tra tên. Xem số liệu bằng:
+ *   - JMX: MBean "personalfinance:type=Metrics" (jconsole, VisualVM), không cần gắn profiler
+ *   - Bản in định kỳ dạng văn bản (startPeriodicDump) hoặc dump() bất kỳ lúc nào
+ */
+public final class Metrics {
+    public static final String MBEAN_NAME = "personalfinance:type=Metrics";
+    
+    // Sắp theo tên để bản in dễ đọc và ổn định
+    private static final ConcurrentMap<String, LatencyHistogram> TIMERS = new ConcurrentSkipListMap<>();
+    private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    
+    private static boolean mbeanRegistered;
+    private static ScheduledExecutorService dumpScheduler;
+    
+    private Metrics() {
+    }
+    
+    /**
+     * Histogram độ trễ theo tên (tạo mới nếu chưa có)
+     */
+    public static LatencyHistogram timer(String name) {
+        return TIMERS.computeIfAbsent(name, LatencyHistogram::new);
+    }
+    
+    /**
+     * Bộ đếm theo tên (tạo mới nếu chưa có), vd: số byte đã ghi
+     */
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+    }
+    
+    static Map<String, LatencyHistogram> timers() {
+        return TIMERS;
+    }
+    
+    static Map<String, LongAdder> counters() {
+        return COUNTERS;
+    }
+    
+    /**
+     * Xóa mọi số đo (các timer/counter vẫn được giữ, chỉ về 0)
+     */
+    public static void reset() {
+        TIMERS.values().forEach(LatencyHistogram::reset);
+        COUNTERS.values().forEach(LongAdder::reset);
+    }
+    
+    /**
+     * Bản in dạng bảng của mọi số đo (thời gian tính bằng ms)
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("===== METRICS ").append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+            .append(" =====\n");
+        sb.append(String.format(Locale.ROOT, "%-26s %10s %10s %10s %10s %10s%n",
+            "timer", "count", "p50 ms", "p99 ms", "max ms", "mean ms"));
+        for (LatencyHistogram timer : TIMERS.values()) {
+            sb.append(String.format(Locale.ROOT, "%-26s %10d %10.3f %10.3f %10.3f %10.3f%n",
+                timer.getName(), timer.getCount(),
+                toMillis(timer.getPercentileNanos(0.50)), toMillis(timer.getPercentileNanos(0.99)),
+                toMillis(timer.getMaxNanos()), toMillis(timer.getMeanNanos())));
+        }
+        sb.append(String.format(Locale.ROOT, "%-26s %10s%n", "counter", "value"));
+        for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+            sb.append(String.format(Locale.ROOT, "%-26s %10d%n", entry.getKey(), entry.getValue().sum()));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Đăng ký MBean với platform MBeanServer (gọi nhiều lần chỉ đăng ký một lần)
+     * @return false nếu JMX không dùng được
+     */
+    public static synchronized boolean registerMBean() {
+        if (mbeanRegistered) {
+            return true;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsBean(), name);
+            }
+            mbeanRegistered = true;
+            return true;
+        } catch (JMException | SecurityException e) {
+            System.err.println("⚠️  Không đăng ký được MBean metrics: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * In dump() định kỳ mỗi intervalMillis trên một luồng nền (daemon); gọi lại thì thay lịch cũ
+     */
+    public static synchronized void startPeriodicDump(long intervalMillis, Consumer<String> out) {
+        stopPeriodicDump();
+        dumpScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpScheduler.scheduleAtFixedRate(() -> out.accept(dump()), intervalMillis, intervalMillis,
+            TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * In định kỳ, nối vào cuối file (vd: data/metrics.log)
+     */
+    public static void startPeriodicDump(long intervalMillis, File file) {
+        startPeriodicDump(intervalMillis, text -> {
+            try (Writer writer = new FileWriter(file, StandardCharsets.UTF_8, true)) {
+                writer.write(text);
+            } catch (IOException e) {
+                System.err.println("✗ Lỗi khi ghi metrics: " + e.getMessage());
+            }
+        });
+    }
+    
+    public static synchronized void stopPeriodicDump() {
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdown();
+            dumpScheduler = null;
+        }
+    }
+    
+    static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
\ No newline at end of file
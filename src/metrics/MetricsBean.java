@@ -0,0 +1,112 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+/**
+ * MBean động cho Metrics: mỗi timer "x" thành các thuộc tính chỉ đọc x.count, x.p50Millis,
+ * x.p99Millis, x.maxMillis, x.meanMillis; mỗi counter là một thuộc tính cùng tên.
+ * Danh sách thuộc tính dựng lại mỗi lần hỏi nên timer tạo sau khi đăng ký vẫn hiện ra.
+ * Thao tác: dump() trả bản in văn bản, reset() xóa số đo.
+ */
+class MetricsBean implements DynamicMBean {
+    private static final String[] TIMER_FIELDS = {"count", "p50Millis", "p99Millis", "maxMillis", "meanMillis"};
+    
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        LongAdder counter = Metrics.counters().get(attribute);
+        if (counter != null) {
+            return counter.sum();
+        }
+        
+        int dot = attribute.lastIndexOf('.');
+        LatencyHistogram timer = dot < 0 ? null : Metrics.timers().get(attribute.substring(0, dot));
+        if (timer != null) {
+            switch (attribute.substring(dot + 1)) {
+                case "count":
+                    return timer.getCount();
+                case "p50Millis":
+                    return Metrics.toMillis(timer.getPercentileNanos(0.50));
+                case "p99Millis":
+                    return Metrics.toMillis(timer.getPercentileNanos(0.99));
+                case "maxMillis":
+                    return Metrics.toMillis(timer.getMaxNanos());
+                case "meanMillis":
+                    return Metrics.toMillis(timer.getMeanNanos());
+                default:
+                    break;
+            }
+        }
+        throw new AttributeNotFoundException("Không có thuộc tính: " + attribute);
+    }
+    
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Bỏ qua thuộc tính không có, theo quy ước của DynamicMBean
+            }
+        }
+        return list;
+    }
+    
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Thuộc tính chỉ đọc: " + attribute.getName());
+    }
+    
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+    
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        switch (actionName) {
+            case "dump":
+                return Metrics.dump();
+            case "reset":
+                Metrics.reset();
+                return null;
+            default:
+                throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+    }
+    
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : Metrics.timers().keySet()) {
+            for (String field : TIMER_FIELDS) {
+                String type = field.equals("count") ? "java.lang.Long" : "java.lang.Double";
+                attributes.add(new MBeanAttributeInfo(name + "." + field, type, name + " " + field, true, false, false));
+            }
+        }
+        for (Map.Entry<String, LongAdder> entry : Metrics.counters().entrySet()) {
+            attributes.add(new MBeanAttributeInfo(entry.getKey(), "java.lang.Long", entry.getKey(), true, false, false));
+        }
+        
+        MBeanOperationInfo[] operations = {
+            new MBeanOperationInfo("dump", "Bản in văn bản của mọi số đo", new MBeanParameterInfo[0],
+                "java.lang.String", MBeanOperationInfo.INFO),
+            new MBeanOperationInfo("reset", "Xóa mọi số đo", new MBeanParameterInfo[0],
+                "void", MBeanOperationInfo.ACTION)
+        };
+        return new MBeanInfo(getClass().getName(), "Độ trễ và bộ đếm I/O, báo cáo",
+            attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+}
\ No newline at end of file
@@ -1,28 +1,119 @@
 package models;
 
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 
 /**
  * Lớp quản lý tài khoản và các giao dịch
  * Đây là lớp trung tâm chứa tất cả dữ liệu
+ *
+ * An toàn khi dùng từ nhiều luồng: thêm/xóa giữ khóa ghi, các truy vấn giữ khóa đọc
+ * (nhiều luồng đọc cùng lúc), còn số dư và số lượng giao dịch đọc không cần khóa.
  */
 public class Account {
+    /**
+     * Thứ tự tự nhiên của ID: ngắn trước, cùng độ dài thì theo chữ (T0999 < T1000 < T10000)
+     */
+    public static final Comparator<String> ID_ORDER =
+        Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+    
+    /**
+     * Khoảng ngày giao dịch được chấp nhận; ngoài khoảng này các cây tổng theo ngày (DailyRollup)
+     * sẽ phải cấp phát hàng triệu ô cho mỗi danh mục nên giao dịch bị từ chối ngay khi thêm
+     */
+    public static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    public static final LocalDate MAX_DATE = LocalDate.of(2199, 12, 31);
+    
+    private static final String NOTE_CURSOR = "NOTE";
+    
+    // Độ trễ thêm/xóa giao dịch (gồm cả thời gian chờ khóa ghi)
+    private static final LatencyHistogram ADD_TIME = Metrics.timer("account.add");
+    private static final LatencyHistogram REMOVE_TIME = Metrics.timer("account.remove");
+    
+    // Truy vấn có tối đa chừng này dòng ứng viên thì getPage lấy hết rồi sắp xếp thay vì duyệt chỉ mục
+    static final int SORTED_PAGE_LIMIT = 10000;
+    
+    // Các chỉ mục có thể được dựng muộn (xem missingIndexes)
+    private static final int ID_INDEX = 1;
+    private static final int NOTE_INDEX = 2;
+    private static final int SORTED_IDS = 4;
+    
     private String name;                        // Tên tài khoản
-    private double balance;                     // Số dư hiện tại
-    private List<Transaction> transactions;     // Danh sách giao dịch
-    private List<Category> categories;          // Danh sách danh mục
+    private AtomicLong balanceMinor;            // Số dư hiện tại (xu)
+    private TransactionTable transactions;      // Bảng giao dịch lưu theo cột
+    private List<Category> categories;          // Danh sách danh mục (ít thay đổi, đọc không cần khóa)
+    
+    // Khóa cho bảng giao dịch, các chỉ mục và cây tổng (không reentrant)
+    private final StampedLock lock;
+    
+    // Chỉ mục phụ theo ngày (epoch day -> các dòng trong ngày) cho truy vấn khoảng thời gian
+    private NavigableMap<Long, IntList> dateIndex;
+    
+    // Chỉ mục theo ID (ID -> dòng trong bảng) để tìm / xóa theo ID trong O(1)
+    private Map<String, Integer> idIndex;
+    
+    // Các ID sắp theo ID_ORDER để phân trang theo ID (dựng ở lần phân trang theo ID đầu tiên)
+    private NavigableSet<String> sortedIds;
+    private AtomicInteger nextIdNumber;         // Số thứ tự cho ID tự động tiếp theo
+    
+    // Tổng tiền theo ngày (cây Fenwick) để tính tổng một khoảng bất kỳ trong O(log số ngày)
+    private DailyRollup incomeRollup;
+    private DailyRollup expenseRollup;
+    private List<DailyRollup> categoryExpenseRollups;   // Theo số thứ tự danh mục trong bảng
+    
+    // Chỉ mục đảo từ trong ghi chú -> giao dịch, cho tìm kiếm theo ghi chú
+    private NoteIndex noteIndex;
+    
+    // Bộ đếm chi tiêu theo (danh mục, tháng) cho kiểm tra ngân sách O(1)
+    private BudgetTracker budgetTracker;
+    
+    // Số phiên bản dữ liệu, tăng sau mỗi thay đổi (giao dịch, danh mục, ngân sách, số dư)
+    private final AtomicLong version;
+    
+    // Các chỉ mục chưa dựng (ID_INDEX | NOTE_INDEX | SORTED_IDS): chỉ mục ID và ghi chú cần giải mã
+    // mọi dòng nên restoreTable hoãn lại tới lần dùng đầu tiên. Chỉ đổi khi giữ khóa ghi.
+    private volatile int missingIndexes;
     
     /**
      * Constructor khởi tạo tài khoản
      */
     public Account(String name, double initialBalance) {
         this.name = name;
-        this.balance = initialBalance;
-        this.transactions = new ArrayList<>();
-        this.categories = new ArrayList<>();
+        this.balanceMinor = new AtomicLong(Math.round(initialBalance * 100));
+        this.transactions = new TransactionTable();
+        this.categories = new CopyOnWriteArrayList<>();
+        this.lock = new StampedLock();
+        this.nextIdNumber = new AtomicInteger(1);
+        this.dateIndex = new TreeMap<>();
+        this.idIndex = new HashMap<>();
+        this.sortedIds = new TreeSet<>(ID_ORDER);
+        this.incomeRollup = new DailyRollup();
+        this.expenseRollup = new DailyRollup();
+        this.categoryExpenseRollups = new ArrayList<>();
+        this.noteIndex = new NoteIndex();
+        this.budgetTracker = new BudgetTracker();
+        this.version = new AtomicLong();
+        this.missingIndexes = SORTED_IDS;
         initDefaultCategories();
     }
     
@@ -50,33 +141,331 @@ public class Account {
      * Thêm giao dịch mới và cập nhật số dư
      */
     public void addTransaction(Transaction transaction) {
-        transactions.add(transaction);
+        checkDate(transaction.getDate());
+        long start = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            int row = insertTransaction(transaction, true);
+            
+            // Cập nhật số dư dựa trên loại giao dịch
+            long amount = transactions.getAmountMinor(row);
+            balanceMinor.addAndGet(transactions.isIncome(row) ? amount : -amount);
+            version.incrementAndGet();
+        } finally {
+            lock.unlockWrite(stamp);
+            ADD_TIME.recordSince(start);
+        }
+        
+        // Báo vượt ngưỡng ngân sách khi đã nhả khóa, để listener đọc lại được tài khoản
+        budgetTracker.dispatchPending();
+    }
+    
+    /**
+     * Thêm nhiều giao dịch trong một lần giữ khóa ghi (vd: nhập sao kê ngân hàng)
+     * Số dư được cộng một lần cho cả lô; không báo vượt ngưỡng ngân sách cho từng dòng.
+     */
+    public void addTransactions(List<? extends Transaction> batch) {
+        for (Transaction transaction : batch) {
+            checkDate(transaction.getDate());
+        }
+        long stamp = lock.writeLock();
+        try {
+            long delta = 0;
+            for (Transaction transaction : batch) {
+                int row = insertTransaction(transaction, false);
+                long amount = transactions.getAmountMinor(row);
+                delta += transactions.isIncome(row) ? amount : -amount;
+            }
+            balanceMinor.addAndGet(delta);
+            version.incrementAndGet();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Thêm giao dịch đã lưu trong file mà không cập nhật số dư
+     * (dùng khi load từ file, vì số dư đã được đọc từ account.txt)
+     */
+    public void restoreTransaction(Transaction transaction) {
+        checkDate(transaction.getDate());
+        long stamp = lock.writeLock();
+        try {
+            insertTransaction(transaction, false);
+            version.incrementAndGet();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Nhận cả bảng giao dịch đã đọc sẵn (vd: từ file columnar) rồi dựng các chỉ mục thẳng từ các cột,
+     * không tạo Transaction cho từng dòng và không cập nhật số dư (giống restoreTransaction)
+     * Chỉ mục ngày, cây tổng và ngân sách chỉ cần các cột số nên được dựng ngay; chỉ mục ID và ghi chú
+     * cần giải mã ID / ghi chú của mọi dòng nên được dựng ở lần đầu có thao tác cần đến chúng.
+     * Danh mục trong bảng phải là danh mục của tài khoản này.
+     * @throws IllegalStateException nếu tài khoản đã có giao dịch
+     * @throws IllegalArgumentException nếu có ngày nằm ngoài [MIN_DATE, MAX_DATE]
+     */
+    public void restoreTable(TransactionTable table) {
+        for (int row = 0; row < table.size(); row++) {
+            long day = table.getEpochDay(row);
+            if (day < MIN_DATE.toEpochDay() || day > MAX_DATE.toEpochDay()) {
+                checkDate(LocalDate.ofEpochDay(day));
+            }
+        }
+        
+        long stamp = lock.writeLock();
+        try {
+            if (transactions.size() > 0) {
+                throw new IllegalStateException("Tài khoản đã có giao dịch");
+            }
+            transactions = table;
+            missingIndexes = ID_INDEX | NOTE_INDEX | SORTED_IDS;
+            indexByDay();
+            version.incrementAndGet();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Dựng chỉ mục ngày, cây tổng và bộ đếm ngân sách cho cả bảng (tài khoản đang rỗng)
+     * Gom theo ngày trước (đếm và cộng dồn trên mảng theo ngày) nên mỗi cấu trúc chỉ được cập nhật
+     * một lần cho mỗi ngày / (danh mục, ngày) thay vì một lần cho mỗi dòng.
+     */
+    private void indexByDay() {
+        int size = transactions.size();
+        if (size == 0) {
+            return;
+        }
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        for (int row = 0; row < size; row++) {
+            minDay = Math.min(minDay, transactions.getEpochDay(row));
+            maxDay = Math.max(maxDay, transactions.getEpochDay(row));
+        }
+        int span = maxDay - minDay + 1;   // Tối đa ~110 nghìn ngày (MIN_DATE..MAX_DATE)
         
-        // Cập nhật số dư dựa trên loại giao dịch
-        if (transaction instanceof Income) {
-            balance += transaction.getAmount();
-        } else if (transaction instanceof Expense) {
-            balance -= transaction.getAmount();
+        // Đếm số dòng và cộng tiền theo ngày; chi tiêu cộng riêng theo danh mục
+        int[] counts = new int[span];
+        long[] incomeByDay = new long[span];
+        long[][] expenseByCategoryDay = new long[transactions.getCategoryCount()][];
+        for (int row = 0; row < size; row++) {
+            int day = transactions.getEpochDay(row) - minDay;
+            counts[day]++;
+            if (transactions.isIncome(row)) {
+                incomeByDay[day] += transactions.getAmountMinor(row);
+            } else {
+                int ordinal = transactions.getCategoryOrdinal(row);
+                if (expenseByCategoryDay[ordinal] == null) {
+                    expenseByCategoryDay[ordinal] = new long[span];
+                }
+                expenseByCategoryDay[ordinal][day] += transactions.getAmountMinor(row);
+            }
+        }
+        
+        // Sắp xếp đếm: các dòng của cùng một ngày liền nhau, tăng dần như khi thêm từng dòng
+        int[] starts = new int[span + 1];
+        for (int day = 0; day < span; day++) {
+            starts[day + 1] = starts[day] + counts[day];
+        }
+        int[] rowsByDay = new int[size];
+        int[] next = Arrays.copyOf(starts, span);
+        for (int row = 0; row < size; row++) {
+            rowsByDay[next[transactions.getEpochDay(row) - minDay]++] = row;
+        }
+        for (int day = 0; day < span; day++) {
+            if (counts[day] > 0) {
+                dateIndex.put((long) minDay + day, IntList.of(rowsByDay, starts[day], starts[day + 1]));
+            }
+            if (incomeByDay[day] != 0) {
+                incomeRollup.add(minDay + day, incomeByDay[day]);
+            }
+        }
+        
+        for (int ordinal = 0; ordinal < expenseByCategoryDay.length; ordinal++) {
+            long[] byDay = expenseByCategoryDay[ordinal];
+            if (byDay == null) {
+                continue;
+            }
+            while (categoryExpenseRollups.size() <= ordinal) {
+                categoryExpenseRollups.add(new DailyRollup());
+            }
+            Category category = transactions.getCategoryByOrdinal(ordinal);
+            for (int day = 0; day < span; day++) {
+                if (byDay[day] != 0) {
+                    expenseRollup.add(minDay + day, byDay[day]);
+                    categoryExpenseRollups.get(ordinal).add(minDay + day, byDay[day]);
+                    budgetTracker.record(category, minDay + day, byDay[day], 1, false);
+                }
+            }
         }
     }
     
     /**
      * Xóa giao dịch theo ID và hoàn lại số dư
+     * Dòng cuối bảng được chuyển vào chỗ trống nên thứ tự danh sách có thể thay đổi
      * @return true nếu xóa thành công, false nếu không tìm thấy
      */
     public boolean removeTransaction(String id) {
-        Transaction trans = findTransactionById(id);
-        if (trans != null) {
-            // Hoàn lại số dư
-            if (trans instanceof Income) {
-                balance -= trans.getAmount();
-            } else {
-                balance += trans.getAmount();
+        long start = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            // Dựng chỉ mục ghi chú trước khi dời dòng, để seq vẫn theo thứ tự thêm vào
+            buildIndexes(ID_INDEX | NOTE_INDEX);
+            if (!removeRow(id)) {
+                return false;
             }
-            transactions.remove(trans);
+            version.incrementAndGet();
             return true;
+        } finally {
+            lock.unlockWrite(stamp);
+            REMOVE_TIME.recordSince(start);
+        }
+    }
+    
+    private boolean removeRow(String id) {
+        Integer slot = idIndex.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        if ((missingIndexes & SORTED_IDS) == 0) {
+            sortedIds.remove(id);
+        }
+        
+        int row = slot;
+        long amount = transactions.getAmountMinor(row);
+        
+        // Hoàn lại số dư
+        balanceMinor.addAndGet(transactions.isIncome(row) ? -amount : amount);
+        
+        unindexByDate(row);
+        noteIndex.remove(row);
+        updateRollups(row, -1);
+        if (!transactions.isIncome(row)) {
+            budgetTracker.record(transactions.getCategory(row), transactions.getEpochDay(row),
+                transactions.getAmountMinor(row), -1, false);
+        }
+        
+        // Lấp chỗ trống bằng dòng cuối để tránh dịch chuyển cả bảng
+        int lastRow = transactions.size() - 1;
+        if (row != lastRow) {
+            dateIndex.get((long) transactions.getEpochDay(lastRow)).replaceValue(lastRow, row);
+            idIndex.replace(transactions.getId(lastRow), lastRow, row);
+            noteIndex.move(lastRow, row);
+        }
+        transactions.removeSwap(row);
+        noteIndex.compactIfSparse();
+        return true;
+    }
+    
+    /**
+     * Ngày có nằm trong [MIN_DATE, MAX_DATE] không
+     */
+    public static boolean isSupportedDate(LocalDate date) {
+        return date != null && !date.isBefore(MIN_DATE) && !date.isAfter(MAX_DATE);
+    }
+    
+    /**
+     * Kiểm tra trước khi giữ khóa ghi, để giao dịch lỗi không làm hỏng bảng giữa chừng
+     * @throws IllegalArgumentException nếu ngày nằm ngoài [MIN_DATE, MAX_DATE]
+     */
+    private static void checkDate(LocalDate date) {
+        if (!isSupportedDate(date)) {
+            throw new IllegalArgumentException("Ngày giao dịch phải từ " + MIN_DATE + " đến " + MAX_DATE + ": " + date);
+        }
+    }
+    
+    /**
+     * Thêm giao dịch vào bảng và các chỉ mục
+     * @param notifyBudget true nếu cần báo vượt ngưỡng ngân sách (giao dịch mới)
+     * @return số thứ tự dòng vừa thêm
+     */
+    private int insertTransaction(Transaction transaction, boolean notifyBudget) {
+        int row = transactions.add(transaction);
+        indexRow(row, notifyBudget);
+        return row;
+    }
+    
+    /**
+     * Đưa một dòng đã có trong bảng vào các chỉ mục, cây tổng theo ngày và theo dõi ngân sách
+     */
+    private void indexRow(int row, boolean notifyBudget) {
+        dateIndex.computeIfAbsent((long) transactions.getEpochDay(row), day -> new IntList()).add(row);
+        updateRollups(row, 1);
+        if (!transactions.isIncome(row)) {
+            budgetTracker.record(transactions.getCategory(row), transactions.getEpochDay(row),
+                transactions.getAmountMinor(row), 1, notifyBudget);
+        }
+        
+        // Chỉ mục chưa dựng sẽ lấy dòng này khi được dựng
+        int missing = missingIndexes;
+        if ((missing & ID_INDEX) == 0) {
+            indexId(row);
+        }
+        if ((missing & SORTED_IDS) == 0) {
+            sortedIds.add(transactions.getId(row));
+        }
+        if ((missing & NOTE_INDEX) == 0) {
+            noteIndex.add(row, transactions.getNote(row));
+        }
+    }
+    
+    /**
+     * Đưa ID của một dòng vào chỉ mục ID và cập nhật số thứ tự cho ID tự động
+     */
+    private void indexId(int row) {
+        String id = transactions.getId(row);
+        
+        // Giữ giao dịch đầu tiên nếu file cũ có ID trùng (giống findFirst trước đây)
+        idIndex.putIfAbsent(id, row);
+        
+        // Cập nhật số thứ tự để ID tự động không trùng với ID đã có
+        if (id.length() > 1 && id.length() <= 10 && id.charAt(0) == 'T') {
+            int number = 0;
+            for (int i = 1; i < id.length() && number >= 0; i++) {
+                char ch = id.charAt(i);
+                number = (ch >= '0' && ch <= '9') ? number * 10 + (ch - '0') : -1;
+            }
+            // Bỏ qua ID không theo format T0001
+            if (number >= 0) {
+                nextIdNumber.accumulateAndGet(number + 1, Math::max);
+            }
+        }
+    }
+    
+    /**
+     * Cộng (sign = 1) hoặc trừ (sign = -1) số tiền của một dòng vào các cây tổng theo ngày
+     */
+    private void updateRollups(int row, int sign) {
+        long day = transactions.getEpochDay(row);
+        long minor = sign * transactions.getAmountMinor(row);
+        
+        if (transactions.isIncome(row)) {
+            incomeRollup.add(day, minor);
+        } else {
+            expenseRollup.add(day, minor);
+            int ordinal = transactions.getCategoryOrdinal(row);
+            while (categoryExpenseRollups.size() <= ordinal) {
+                categoryExpenseRollups.add(new DailyRollup());
+            }
+            categoryExpenseRollups.get(ordinal).add(day, minor);
+        }
+    }
+    
+    /**
+     * Xóa một dòng khỏi chỉ mục ngày
+     */
+    private void unindexByDate(int row) {
+        long day = transactions.getEpochDay(row);
+        IntList sameDay = dateIndex.get(day);
+        if (sameDay != null) {
+            sameDay.removeValue(row);
+            if (sameDay.isEmpty()) {
+                dateIndex.remove(day);
+            }
         }
-        return false;
     }
     
     /**
@@ -84,10 +473,13 @@ public class Account {
      * @return Transaction nếu tìm thấy, null nếu không
      */
     public Transaction findTransactionById(String id) {
-        return transactions.stream()
-            .filter(t -> t.getId().equals(id))
-            .findFirst()
-            .orElse(null);
+        long stamp = readLock(ID_INDEX);
+        try {
+            Integer slot = idIndex.get(id);
+            return slot == null ? null : transactions.get(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
     
     /**
@@ -101,39 +493,634 @@ public class Account {
     }
     
     /**
-     * Lấy tất cả giao dịch trong khoảng thời gian
+     * Lấy tất cả giao dịch trong khoảng thời gian (sắp xếp theo ngày)
+     * Dùng chỉ mục ngày nên chỉ tốn O(log n + k)
      */
     public List<Transaction> getTransactionsByDateRange(LocalDate from, LocalDate to) {
-        return transactions.stream()
-            .filter(t -> !t.getDate().isBefore(from) && !t.getDate().isAfter(to))
-            .collect(Collectors.toList());
+        List<Transaction> result = new ArrayList<>();
+        forEachRowInDateRange(from, to, row -> result.add(transactions.get(row)));
+        return result;
+    }
+    
+    /**
+     * Tổng thu nhập trong khoảng thời gian, tính từ cây Fenwick (O(log số ngày))
+     */
+    public double getIncomeTotal(LocalDate from, LocalDate to) {
+        long stamp = lock.readLock();
+        try {
+            return incomeRollup.sum(from.toEpochDay(), to.toEpochDay()) / 100.0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Tổng chi tiêu trong khoảng thời gian, tính từ cây Fenwick (O(log số ngày))
+     */
+    public double getExpenseTotal(LocalDate from, LocalDate to) {
+        long stamp = lock.readLock();
+        try {
+            return expenseRollup.sum(from.toEpochDay(), to.toEpochDay()) / 100.0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Tổng chi tiêu của một danh mục trong khoảng thời gian (O(log số ngày))
+     */
+    public double getCategoryExpenseTotal(String categoryName, LocalDate from, LocalDate to) {
+        long stamp = lock.readLock();
+        try {
+            long total = 0;
+            for (int ordinal = 0; ordinal < categoryExpenseRollups.size(); ordinal++) {
+                if (transactions.getCategoryByOrdinal(ordinal).getName().equalsIgnoreCase(categoryName)) {
+                    total += categoryExpenseRollups.get(ordinal).sum(from.toEpochDay(), to.toEpochDay());
+                }
+            }
+            return total / 100.0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Duyệt các giao dịch trong khoảng thời gian theo thứ tự ngày mà không tạo danh sách mới
+     * action chạy khi đang giữ khóa đọc nên không được thêm/xóa giao dịch
+     */
+    public void forEachInDateRange(LocalDate from, LocalDate to, Consumer<Transaction> action) {
+        forEachRowInDateRange(from, to, row -> action.accept(transactions.get(row)));
+    }
+    
+    /**
+     * Duyệt số dòng (trong getTable()) của các giao dịch trong khoảng thời gian theo thứ tự ngày
+     * Không tạo đối tượng Transaction, dùng cho các phép tổng hợp trên cột
+     * action chạy khi đang giữ khóa đọc nên không được thêm/xóa giao dịch
+     */
+    public void forEachRowInDateRange(LocalDate from, LocalDate to, IntConsumer action) {
+        if (from.isAfter(to)) {
+            return;
+        }
+        
+        long stamp = lock.readLock();
+        try {
+            for (IntList sameDay : dateIndex.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values()) {
+                sameDay.forEach(action);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Duyệt mọi giao dịch theo thứ tự trong bảng mà không sao chép danh sách
+     * action chạy khi đang giữ khóa đọc nên không được thêm/xóa giao dịch
+     */
+    public void forEachTransaction(Consumer<Transaction> action) {
+        long stamp = lock.readLock();
+        try {
+            for (int row = 0; row < transactions.size(); row++) {
+                action.accept(transactions.get(row));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Lấy một trang giao dịch theo thứ tự sắp xếp, bắt đầu sau cursor (null: trang đầu)
+     * Chỉ duyệt đủ số dòng cho một trang nhờ chỉ mục ngày / ID, không sao chép hay sắp xếp cả danh sách.
+     */
+    public TransactionPage getPage(TransactionPage.Order order, String cursor, int pageSize) {
+        return getPage(order, cursor, pageSize, null, null, null);
+    }
+    
+    /**
+     * Như getPage nhưng chỉ lấy giao dịch trong khoảng ngày [from, to] (null: không giới hạn)
+     * và thỏa rowFilter (kiểm tra theo số dòng trong getTable(); null: mọi dòng)
+     * rowFilter chạy khi đang giữ khóa đọc nên không được gọi các phương thức khác của Account.
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
+     */
+    public TransactionPage getPage(TransactionPage.Order order, String cursor, int pageSize,
+                                   LocalDate from, LocalDate to, IntPredicate rowFilter) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Kích thước trang phải lớn hơn 0");
+        }
+        TransactionPage.Position after = cursor == null ? null : TransactionPage.decodeCursor(order, cursor);
+        long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        
+        boolean byDate = order == TransactionPage.Order.DATE_ASC || order == TransactionPage.Order.DATE_DESC;
+        
+        // Lấy thừa một dòng để biết còn trang sau hay không
+        IntList rows = new IntList();
+        long stamp = readLock(byDate ? 0 : SORTED_IDS);
+        try {
+            if (fromDay <= toDay) {
+                boolean descending = order == TransactionPage.Order.DATE_DESC || order == TransactionPage.Order.ID_DESC;
+                if (byDate) {
+                    collectByDate(descending, after, fromDay, toDay, rowFilter, pageSize + 1, rows);
+                } else {
+                    collectById(descending, after, fromDay, toDay, rowFilter, pageSize + 1, rows);
+                }
+            }
+            return toPage(order, rows, pageSize);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Tạo trang từ tối đa pageSize + 1 dòng đã lấy (dòng thừa chỉ để biết còn trang sau)
+     */
+    private TransactionPage toPage(TransactionPage.Order order, IntList rows, int pageSize) {
+        int count = Math.min(rows.size(), pageSize);
+        List<Transaction> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(transactions.get(rows.get(i)));
+        }
+        
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            int last = rows.get(pageSize - 1);
+            nextCursor = TransactionPage.encodeCursor(order, transactions.getEpochDay(last), transactions.getId(last));
+        }
+        return new TransactionPage(items, nextCursor);
+    }
+    
+    /**
+     * Duyệt chỉ mục ngày từ ngày của cursor, các dòng cùng ngày xếp theo ID (thứ tự trong ngày không cố định)
+     */
+    private void collectByDate(boolean descending, TransactionPage.Position after, long fromDay, long toDay,
+                               IntPredicate rowFilter, int limit, IntList out) {
+        NavigableMap<Long, IntList> days = dateIndex.subMap(fromDay, true, toDay, true);
+        if (descending) {
+            days = days.descendingMap();
+        }
+        if (after != null) {
+            days = days.tailMap(after.key, true);
+        }
+        Comparator<String> idOrder = descending ? ID_ORDER.reversed() : ID_ORDER;
+        
+        for (Map.Entry<Long, IntList> entry : days.entrySet()) {
+            IntList sameDay = entry.getValue();
+            Integer[] sorted = new Integer[sameDay.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = sameDay.get(i);
+            }
+            if (sorted.length > 1) {
+                Arrays.sort(sorted, (a, b) -> idOrder.compare(transactions.getId(a), transactions.getId(b)));
+            }
+            
+            boolean cursorDay = after != null && entry.getKey() == after.key;
+            for (int row : sorted) {
+                if (cursorDay && idOrder.compare(transactions.getId(row), after.id) <= 0) {
+                    continue;
+                }
+                if (rowFilter == null || rowFilter.test(row)) {
+                    out.add(row);
+                    if (out.size() >= limit) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Duyệt các ID đã sắp xếp từ sau ID của cursor, bỏ các dòng ngoài khoảng ngày
+     * Người gọi giữ khóa lấy từ readLock(SORTED_IDS).
+     */
+    private void collectById(boolean descending, TransactionPage.Position after, long fromDay, long toDay,
+                             IntPredicate rowFilter, int limit, IntList out) {
+        NavigableSet<String> ids = descending ? sortedIds.descendingSet() : sortedIds;
+        if (after != null) {
+            ids = ids.tailSet(after.id, false);
+        }
+        
+        for (String id : ids) {
+            int row = idIndex.get(id);
+            long day = transactions.getEpochDay(row);
+            if (day >= fromDay && day <= toDay && (rowFilter == null || rowFilter.test(row))) {
+                out.add(row);
+                if (out.size() >= limit) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Khóa đọc sau khi chắc chắn các chỉ mục trong indexes đã được dựng
+     * Lần đầu cần một chỉ mục chưa dựng thì giữ khóa ghi để dựng rồi hạ xuống khóa đọc.
+     */
+    private long readLock(int indexes) {
+        long stamp = lock.readLock();
+        if ((missingIndexes & indexes) == 0) {
+            return stamp;
+        }
+        lock.unlockRead(stamp);
+        stamp = lock.writeLock();
+        buildIndexes(indexes);
+        return lock.tryConvertToReadLock(stamp);
+    }
+    
+    /**
+     * Dựng các chỉ mục còn thiếu trong indexes (người gọi giữ khóa ghi)
+     * Tập ID đã sắp xếp chỉ cần cho phân trang theo ID nên tài khoản không phân trang theo ID
+     * không phải cập nhật nó mỗi lần thêm / xóa.
+     */
+    private void buildIndexes(int indexes) {
+        int missing = missingIndexes & indexes;
+        if ((missing & SORTED_IDS) != 0) {
+            missing |= missingIndexes & ID_INDEX;   // Tập ID sắp xếp dựng từ chỉ mục ID
+        }
+        if (missing == 0) {
+            return;
+        }
+        
+        if ((missing & ID_INDEX) != 0) {
+            for (int row = 0; row < transactions.size(); row++) {
+                indexId(row);
+            }
+        }
+        if ((missing & NOTE_INDEX) != 0) {
+            for (int row = 0; row < transactions.size(); row++) {
+                noteIndex.add(row, transactions.getNote(row));
+            }
+        }
+        if ((missing & SORTED_IDS) != 0) {
+            sortedIds.addAll(idIndex.keySet());
+        }
+        missingIndexes &= ~missing;
+    }
+    
+    /**
+     * Chỉ mục mà CompiledQuery của truy vấn cần
+     */
+    private static int indexesFor(TransactionQuery query) {
+        return query.getNoteQuery() == null ? 0 : NOTE_INDEX;
+    }
+    
+    /**
+     * Tìm theo ghi chú qua chỉ mục đảo, không phân biệt dấu và hoa thường, giao dịch thêm sau trước
+     * Truy vấn: các từ cách nhau là AND, "OR" tách các nhóm, '*' cuối từ là tìm theo tiền tố
+     * (vd: "tien an", "grab OR be", "gra*"). cursor là getNextCursor() của trang trước (null: trang đầu).
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
+     */
+    public TransactionPage searchNotes(String query, String cursor, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Kích thước trang phải lớn hơn 0");
+        }
+        long stamp = readLock(NOTE_INDEX);
+        try {
+            IntList seqs = noteIndex.match(query);
+            
+            // Bắt đầu ngay trước giao dịch của cursor (duyệt từ seq lớn xuống). Cursor giữ stamp chứ không
+            // giữ seq, vì seq bị đánh số lại khi chỉ mục dọn các giao dịch đã xóa
+            int end = seqs.size();
+            if (cursor != null) {
+                int seq = noteIndex.firstSeqFrom(TransactionPage.decodeCursor(NOTE_CURSOR, cursor).key);
+                int index = seqs.binarySearch(0, seqs.size(), seq);
+                end = index >= 0 ? index : -index - 1;
+            }
+            
+            int start = Math.max(0, end - pageSize);
+            List<Transaction> items = new ArrayList<>(end - start);
+            for (int i = end - 1; i >= start; i--) {
+                items.add(transactions.get(noteIndex.rowOf(seqs.get(i))));
+            }
+            
+            String nextCursor = null;
+            if (start > 0) {
+                int last = noteIndex.rowOf(seqs.get(start));
+                nextCursor = TransactionPage.encodeCursor(NOTE_CURSOR, noteIndex.stampOf(seqs.get(start)),
+                    transactions.getId(last));
+            }
+            return new TransactionPage(items, nextCursor);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Số giao dịch có ghi chú khớp truy vấn (cú pháp như searchNotes)
+     */
+    public int countNoteMatches(String query) {
+        long stamp = readLock(NOTE_INDEX);
+        try {
+            return noteIndex.match(query).size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
     
     /**
      * Lấy giao dịch theo danh mục
      */
     public List<Transaction> getTransactionsByCategory(String categoryName) {
-        return transactions.stream()
-            .filter(t -> t.getCategory().getName().equalsIgnoreCase(categoryName))
-            .collect(Collectors.toList());
+        return find(new TransactionQuery().category(categoryName));
     }
     
     /**
      * Lấy danh sách giao dịch thu nhập
      */
     public List<Transaction> getIncomeTransactions() {
-        return transactions.stream()
-            .filter(t -> t instanceof Income)
-            .collect(Collectors.toList());
+        return find(new TransactionQuery().type("THU"));
     }
     
     /**
      * Lấy danh sách giao dịch chi tiêu
      */
     public List<Transaction> getExpenseTransactions() {
-        return transactions.stream()
-            .filter(t -> t instanceof Expense)
-            .collect(Collectors.toList());
+        return find(new TransactionQuery().type("CHI"));
+    }
+    
+    /**
+     * Duyệt các giao dịch khớp truy vấn kết hợp mà không tạo danh sách trung gian
+     * Thứ tự theo cách lấy dòng mà planner chọn (explain): thứ tự thêm vào với NOTE_INDEX,
+     * theo ngày với DATE_INDEX, thứ tự trong bảng với FULL_SCAN. Cần thứ tự cố định thì dùng getPage.
+     * action chạy khi đang giữ khóa đọc nên không được thêm/xóa giao dịch
+     */
+    public void forEachMatch(TransactionQuery query, Consumer<Transaction> action) {
+        forEachMatchingRow(query, row -> action.accept(transactions.get(row)));
+    }
+    
+    /**
+     * Như forEachMatch nhưng chỉ đưa ra số dòng trong getTable(), dùng cho các phép tổng hợp trên cột
+     */
+    public void forEachMatchingRow(TransactionQuery query, IntConsumer action) {
+        long stamp = readLock(indexesFor(query));
+        try {
+            new CompiledQuery(query).forEachRow(action);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Số giao dịch khớp truy vấn (không tạo đối tượng Transaction)
+     */
+    public int count(TransactionQuery query) {
+        int[] count = new int[1];
+        forEachMatchingRow(query, row -> count[0]++);
+        return count[0];
+    }
+    
+    /**
+     * Danh sách giao dịch khớp truy vấn (thứ tự như forEachMatch)
+     */
+    public List<Transaction> find(TransactionQuery query) {
+        List<Transaction> result = new ArrayList<>();
+        forEachMatch(query, result::add);
+        return result;
+    }
+    
+    /**
+     * n giao dịch khớp truy vấn có số tiền lớn nhất, lớn nhất trước (bằng tiền thì ID nhỏ trước)
+     * Giữ một min-heap tối đa n dòng: dòng nhỏ hơn đỉnh heap bị bỏ qua ngay chỉ với một phép so sánh
+     * trên cột số tiền, nên chạy O(m log n) với m dòng ứng viên và chỉ tốn O(n) bộ nhớ,
+     * thay vì sắp xếp toàn bộ kết quả.
+     */
+    public List<Transaction> getLargest(TransactionQuery query, int n) {
+        if (n < 1) {
+            return new ArrayList<>();
+        }
+        long stamp = readLock(indexesFor(query));
+        try {
+            // Đỉnh heap là dòng "yếu" nhất trong n dòng đang giữ
+            Comparator<Integer> weakestFirst = (a, b) -> compareByAmount(b, a);
+            PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(n, 1024) + 1, weakestFirst);
+            new CompiledQuery(query).forEachRow(row -> {
+                if (heap.size() < n) {
+                    heap.add(row);
+                } else if (compareByAmount(row, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(row);
+                }
+            });
+            
+            Transaction[] result = new Transaction[heap.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = transactions.get(heap.poll());
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Âm nếu dòng a xếp trước dòng b trong getLargest (số tiền lớn hơn, bằng tiền thì ID nhỏ hơn)
+     */
+    private int compareByAmount(int a, int b) {
+        int cmp = Long.compare(transactions.getAmountMinor(b), transactions.getAmountMinor(a));
+        return cmp != 0 ? cmp : ID_ORDER.compare(transactions.getId(a), transactions.getId(b));
+    }
+    
+    /**
+     * Cách planner sẽ lấy các dòng ứng viên cho truy vấn
+     */
+    public TransactionQuery.Plan explain(TransactionQuery query) {
+        long stamp = readLock(indexesFor(query));
+        try {
+            return new CompiledQuery(query).plan;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Một trang giao dịch khớp truy vấn kết hợp, theo thứ tự sắp xếp, bắt đầu sau cursor (null: trang đầu)
+     * Ít ứng viên thì lấy hết các dòng khớp rồi sắp xếp; nhiều thì duyệt chỉ mục ngày / ID theo thứ tự
+     * và dừng ngay khi đủ một trang.
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
+     */
+    public TransactionPage getPage(TransactionPage.Order order, String cursor, int pageSize, TransactionQuery query) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Kích thước trang phải lớn hơn 0");
+        }
+        TransactionPage.Position after = cursor == null ? null : TransactionPage.decodeCursor(order, cursor);
+        boolean descending = order == TransactionPage.Order.DATE_DESC || order == TransactionPage.Order.ID_DESC;
+        boolean byDate = order == TransactionPage.Order.DATE_ASC || order == TransactionPage.Order.DATE_DESC;
+        
+        IntList rows = new IntList();
+        long stamp = readLock(indexesFor(query) | (byDate ? 0 : SORTED_IDS));
+        try {
+            CompiledQuery compiled = new CompiledQuery(query);
+            if (compiled.candidates <= SORTED_PAGE_LIMIT) {
+                collectSorted(byDate, descending, after, compiled, pageSize + 1, rows);
+            } else if (byDate) {
+                collectByDate(descending, after, compiled.fromDay, compiled.toDay, compiled::matches, pageSize + 1, rows);
+            } else {
+                collectById(descending, after, compiled.fromDay, compiled.toDay, compiled::matches, pageSize + 1, rows);
+            }
+            return toPage(order, rows, pageSize);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Lấy mọi dòng khớp, sắp theo (ngày, ID) hoặc ID rồi lấy tối đa limit dòng sau cursor
+     */
+    private void collectSorted(boolean byDate, boolean descending, TransactionPage.Position after,
+                               CompiledQuery compiled, int limit, IntList out) {
+        IntList matches = new IntList();
+        compiled.forEachRow(matches::add);
+        Integer[] sorted = new Integer[matches.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = matches.get(i);
+        }
+        
+        Comparator<Integer> order = (a, b) -> ID_ORDER.compare(transactions.getId(a), transactions.getId(b));
+        if (byDate) {
+            order = Comparator.<Integer>comparingInt(transactions::getEpochDay).thenComparing(order);
+        }
+        Arrays.sort(sorted, descending ? order.reversed() : order);
+        
+        for (int row : sorted) {
+            if (after != null) {
+                int cmp = byDate ? Long.compare(transactions.getEpochDay(row), after.key) : 0;
+                if (cmp == 0) {
+                    cmp = ID_ORDER.compare(transactions.getId(row), after.id);
+                }
+                if ((descending ? -cmp : cmp) <= 0) {
+                    continue;
+                }
+            }
+            out.add(row);
+            if (out.size() >= limit) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Truy vấn đã được lập kế hoạch (dựng khi đang giữ khóa đọc)
+     * Planner ước lượng số dòng ứng viên của từng chỉ mục và chọn cách ít dòng nhất;
+     * mọi điều kiện còn lại được kiểm tra trực tiếp trên các cột (matches).
+     */
+    private class CompiledQuery {
+        final TransactionQuery.Plan plan;
+        final long candidates;           // Số dòng ứng viên theo plan
+        final long fromDay;
+        final long toDay;
+        private final IntList noteSeqs;  // Các seq khớp từ khóa ghi chú, null nếu không lọc ghi chú
+        private final Boolean income;    // null nếu không lọc loại
+        private final boolean[] categoryMatches;   // Theo số thứ tự danh mục, null nếu không lọc
+        private final long minAmount;
+        private final long maxAmount;
+        
+        CompiledQuery(TransactionQuery query) {
+            fromDay = query.getFrom() == null ? Long.MIN_VALUE : query.getFrom().toEpochDay();
+            toDay = query.getTo() == null ? Long.MAX_VALUE : query.getTo().toEpochDay();
+            minAmount = query.getMinAmountMinor();
+            maxAmount = query.getMaxAmountMinor();
+            income = query.getType() == null ? null : query.getType().equals("THU");
+            noteSeqs = query.getNoteQuery() == null ? null : noteIndex.match(query.getNoteQuery());
+            
+            // So tên một lần cho mỗi danh mục, sau đó chỉ so số thứ tự trên từng dòng
+            if (query.getCategoryNames() != null) {
+                categoryMatches = new boolean[transactions.getCategoryCount()];
+                for (int ordinal = 0; ordinal < categoryMatches.length; ordinal++) {
+                    String name = transactions.getCategoryByOrdinal(ordinal).getName().toLowerCase();
+                    categoryMatches[ordinal] = query.getCategoryNames().contains(name);
+                }
+            } else {
+                categoryMatches = null;
+            }
+            
+            // Số dòng ứng viên của từng cách lấy; số dòng theo ngày chỉ cần cộng kích thước từng ngày
+            long scanRows = transactions.size();
+            long noteRows = noteSeqs == null ? Long.MAX_VALUE : noteSeqs.size();
+            long dateRows = Long.MAX_VALUE;
+            if (query.hasDateRange()) {
+                dateRows = 0;
+                if (fromDay <= toDay) {
+                    for (IntList sameDay : dateIndex.subMap(fromDay, true, toDay, true).values()) {
+                        dateRows += sameDay.size();
+                    }
+                }
+            }
+            
+            if (noteRows <= dateRows && noteRows <= scanRows) {
+                plan = TransactionQuery.Plan.NOTE_INDEX;
+                candidates = noteRows;
+            } else if (dateRows <= scanRows) {
+                plan = TransactionQuery.Plan.DATE_INDEX;
+                candidates = dateRows;
+            } else {
+                plan = TransactionQuery.Plan.FULL_SCAN;
+                candidates = scanRows;
+            }
+        }
+        
+        /**
+         * Dòng có thỏa mọi điều kiện không (các điều kiện rẻ, trên cột nguyên thủy, được kiểm tra trước)
+         */
+        boolean matches(int row) {
+            return matchesColumns(row)
+                && (noteSeqs == null || noteSeqs.binarySearch(0, noteSeqs.size(), noteIndex.seqOf(row)) >= 0);
+        }
+        
+        /**
+         * Các điều kiện trừ ghi chú (dòng lấy từ chỉ mục ghi chú thì đã khớp ghi chú)
+         */
+        private boolean matchesColumns(int row) {
+            if (income != null && transactions.isIncome(row) != income) {
+                return false;
+            }
+            if (categoryMatches != null && !categoryMatches[transactions.getCategoryOrdinal(row)]) {
+                return false;
+            }
+            long day = transactions.getEpochDay(row);
+            if (day < fromDay || day > toDay) {
+                return false;
+            }
+            long amount = transactions.getAmountMinor(row);
+            if (amount < minAmount || amount > maxAmount) {
+                return false;
+            }
+            return true;
+        }
+        
+        /**
+         * Duyệt các dòng ứng viên theo plan, chỉ đưa ra các dòng thỏa mọi điều kiện
+         */
+        void forEachRow(IntConsumer action) {
+            switch (plan) {
+                case NOTE_INDEX:
+                    for (int i = 0; i < noteSeqs.size(); i++) {
+                        int row = noteIndex.rowOf(noteSeqs.get(i));
+                        if (matchesColumns(row)) {
+                            action.accept(row);
+                        }
+                    }
+                    break;
+                    
+                case DATE_INDEX:
+                    if (fromDay > toDay) {
+                        break;
+                    }
+                    for (IntList sameDay : dateIndex.subMap(fromDay, true, toDay, true).values()) {
+                        for (int i = 0; i < sameDay.size(); i++) {
+                            int row = sameDay.get(i);
+                            if (matches(row)) {
+                                action.accept(row);
+                            }
+                        }
+                    }
+                    break;
+                    
+                default:
+                    for (int row = 0; row < transactions.size(); row++) {
+                        if (matches(row)) {
+                            action.accept(row);
+                        }
+                    }
+            }
+        }
     }
     
     /**
@@ -148,37 +1135,111 @@ public class Account {
     /**
      * Tạo ID tự động cho giao dịch mới
      * Format: T0001, T0002, T0003...
+     * Dựa trên ID lớn nhất đã dùng (không dựa trên số lượng) để không trùng sau khi xóa.
+     * Mỗi lần gọi giữ chỗ một số mới nên nhiều luồng cùng tạo giao dịch cũng không bị trùng ID.
      */
     public String generateTransactionId() {
-        return "T" + String.format("%04d", transactions.size() + 1);
+        // Số thứ tự lấy từ các ID đã có, nên chỉ mục ID phải được dựng trước
+        if ((missingIndexes & ID_INDEX) != 0) {
+            long stamp = lock.writeLock();
+            try {
+                buildIndexes(ID_INDEX);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        String digits = Integer.toString(nextIdNumber.getAndIncrement());
+        return digits.length() >= 4 ? "T" + digits : "T" + "0000".substring(digits.length()) + digits;
     }
     
     /**
      * Thêm danh mục mới
      */
     public void addCategory(Category category) {
-        if (!categories.contains(category)) {
-            categories.add(category);
+        if (((CopyOnWriteArrayList<Category>) categories).addIfAbsent(category)) {
+            version.incrementAndGet();
         }
     }
     
+    /**
+     * Đổi ngân sách của danh mục
+     * Dùng hàm này thay vì Category.setBudget để các báo cáo đã lưu đệm (theo getVersion) bị làm mới
+     */
+    public void setBudget(Category category, double budget) {
+        category.setBudget(budget);
+        version.incrementAndGet();
+    }
+    
+    /**
+     * Giữ khóa đọc để đọc trực tiếp nhiều lần trên getTable() (vd: ghi file) mà bảng không bị đổi giữa chừng.
+     * Khóa không reentrant: trong lúc giữ chỉ đọc bảng, không gọi các phương thức khác của Account.
+     * @return stamp để truyền cho endRead
+     */
+    public long beginRead() {
+        return lock.readLock();
+    }
+    
+    public void endRead(long stamp) {
+        lock.unlockRead(stamp);
+    }
+    
     // ===== GETTERS =====
     public String getName() { 
         return name; 
     }
     
     public double getBalance() { 
-        return balance; 
+        return balanceMinor.get() / 100.0; 
     }
     
     public List<Transaction> getTransactions() { 
-        return new ArrayList<>(transactions); // Trả về bản sao để bảo vệ dữ liệu
+        // Tạo đối tượng cho từng dòng; sửa các đối tượng này không ảnh hưởng tới dữ liệu gốc
+        // (chỉ cần duyệt thì dùng forEachTransaction để khỏi tạo danh sách)
+        List<Transaction> result = new ArrayList<>(getTransactionCount());
+        forEachTransaction(result::add);
+        return result;
+    }
+    
+    /**
+     * Số lượng giao dịch (đọc lạc quan, không chặn luồng ghi)
+     */
+    public int getTransactionCount() {
+        long stamp = lock.tryOptimisticRead();
+        int count = transactions.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                count = transactions.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Bảng giao dịch dạng cột (chỉ nên đọc, mọi thay đổi phải qua Account)
+     */
+    public TransactionTable getTable() {
+        return transactions;
     }
     
     public List<Category> getCategories() { 
         return new ArrayList<>(categories); 
     }
     
+    public BudgetTracker getBudgetTracker() {
+        return budgetTracker;
+    }
+    
+    /**
+     * Số phiên bản dữ liệu: chỉ tăng, đổi sau mỗi lần thêm/xóa giao dịch, thêm danh mục,
+     * đổi ngân sách hay số dư. Hai lần đọc cùng giá trị nghĩa là mọi báo cáo tính giữa hai lần đó vẫn đúng.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+    
     // ===== SETTERS =====
     public void setName(String name) { 
         this.name = name; 
@@ -188,7 +1249,8 @@ public class Account {
      * Set balance trực tiếp (dùng khi load từ file)
      */
     public void setBalance(double balance) { 
-        this.balance = balance; 
+        this.balanceMinor.set(Math.round(balance * 100)); 
+        version.incrementAndGet();
     }
     
     /**
@@ -197,6 +1259,6 @@ public class Account {
     @Override
     public String toString() {
         return String.format("Tài khoản: %s | Số dư: %,.0f VND | Giao dịch: %d", 
-            name, balance, transactions.size());
+            name, getBalance(), getTransactionCount());
     }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package models;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Theo dõi số tiền đã chi của từng danh mục trong từng tháng
+ * Bộ đếm được cập nhật ngay khi thêm/xóa giao dịch nên kiểm tra ngân sách chỉ tốn O(1),
+ * và việc vượt ngưỡng (80%, 100%) được báo ngay sau khi thêm giao dịch.
+ * Bộ đếm được đồng bộ hóa để luồng báo cáo đọc được trong lúc luồng khác đang ghi.
+ * Lần vượt ngưỡng được ghi vào hàng chờ khi Account còn giữ khóa ghi, và chỉ báo cho listener
+ * (dispatchPending) sau khi Account đã nhả khóa.
+ */
+public class BudgetTracker {
+    // Các ngưỡng cảnh báo (% ngân sách)
+    public static final int[] THRESHOLDS = {80, 100};
+    
+    /**
+     * Nhận thông báo khi chi tiêu của danh mục vượt một ngưỡng trong tháng
+     * Được gọi khi không còn giữ khóa nào của Account hay BudgetTracker, nên listener được phép
+     * đọc lại Account; thông báo có thể đến trên luồng thêm giao dịch khác với luồng gây vượt ngưỡng.
+     */
+    public interface BudgetListener {
+        void onThresholdCrossed(Category category, YearMonth month, double spent, int threshold);
+    }
+    
+    private Map<Category, Map<Integer, Long>> spentByMonth;   // Danh mục -> (chỉ số tháng -> số xu đã chi)
+    private List<BudgetListener> listeners;
+    private List<Crossing> pending;   // Các lần vượt ngưỡng chưa báo (giữ monitor khi truy cập)
+    
+    public BudgetTracker() {
+        this.spentByMonth = new IdentityHashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.pending = new ArrayList<>();
+    }
+    
+    /**
+     * Một lần vượt ngưỡng chờ báo cho listener
+     */
+    private static class Crossing {
+        final Category category;
+        final YearMonth month;
+        final double spent;
+        final int threshold;
+        
+        Crossing(Category category, YearMonth month, double spent, int threshold) {
+            this.category = category;
+            this.month = month;
+            this.spent = spent;
+            this.threshold = threshold;
+        }
+    }
+    
+    /**
+     * Cập nhật bộ đếm khi thêm (sign = 1) hoặc xóa (sign = -1) một khoản chi
+     * Không gọi listener ở đây (người gọi đang giữ khóa ghi của Account), chỉ đưa vào hàng chờ.
+     * @param notify true nếu cần báo các ngưỡng vừa bị vượt (không báo khi load từ file)
+     */
+    synchronized void record(Category category, int epochDay, long amountMinor, int sign, boolean notify) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int monthIndex = monthIndex(date.getYear(), date.getMonthValue());
+        Map<Integer, Long> months = spentByMonth.computeIfAbsent(category, c -> new HashMap<>());
+        
+        long before = months.getOrDefault(monthIndex, 0L);
+        long after = before + sign * amountMinor;
+        if (after == 0) {
+            months.remove(monthIndex);
+        } else {
+            months.put(monthIndex, after);
+        }
+        
+        if (!notify || sign < 0 || !category.hasBudget() || listeners.isEmpty()) {
+            return;
+        }
+        
+        double budgetMinor = category.getBudget() * 100;
+        for (int threshold : THRESHOLDS) {
+            double limit = budgetMinor * threshold / 100;
+            if (before <= limit && after > limit) {
+                pending.add(new Crossing(category, YearMonth.from(date), after / 100.0, threshold));
+            }
+        }
+    }
+    
+    /**
+     * Báo cho listener các lần vượt ngưỡng đang chờ
+     * Account gọi sau khi nhả khóa ghi; listener chạy ngoài monitor của BudgetTracker.
+     */
+    void dispatchPending() {
+        List<Crossing> crossings;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            crossings = new ArrayList<>(pending);
+            pending.clear();
+        }
+        for (Crossing crossing : crossings) {
+            for (BudgetListener listener : listeners) {
+                listener.onThresholdCrossed(crossing.category, crossing.month, crossing.spent, crossing.threshold);
+            }
+        }
+    }
+    
+    /**
+     * Số tiền đã chi của danh mục trong tháng (O(1))
+     */
+    public synchronized double getSpent(String categoryName, YearMonth month) {
+        int monthIndex = monthIndex(month.getYear(), month.getMonthValue());
+        long total = 0;
+        for (Map.Entry<Category, Map<Integer, Long>> entry : spentByMonth.entrySet()) {
+            if (entry.getKey().getName().equalsIgnoreCase(categoryName)) {
+                total += entry.getValue().getOrDefault(monthIndex, 0L);
+            }
+        }
+        return total / 100.0;
+    }
+    
+    /**
+     * Phần trăm ngân sách đã dùng trong tháng (0 nếu danh mục không có ngân sách)
+     */
+    public double getUsagePercent(Category category, YearMonth month) {
+        if (!category.hasBudget()) {
+            return 0;
+        }
+        return getSpent(category.getName(), month) / category.getBudget() * 100;
+    }
+    
+    public void addListener(BudgetListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(BudgetListener listener) {
+        listeners.remove(listener);
+    }
+    
+    private static int monthIndex(int year, int month) {
+        return year * 12 + month - 1;
+    }
+}
\ No newline at end of file
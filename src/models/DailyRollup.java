@@ -0,0 +1,109 @@
+package models;
+
+/**
+ * Cây Fenwick (Binary Indexed Tree) lưu tổng tiền theo từng ngày
+ * Cập nhật một ngày và tính tổng một khoảng ngày bất kỳ đều tốn O(log số ngày).
+ * Số tiền lưu theo đơn vị xu (long) để cộng/trừ luôn triệt tiêu chính xác.
+ */
+public class DailyRollup {
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    // Số ngày tối đa (~2870 năm, 8 MB mỗi mảng); Account chỉ nhận ngày trong khoảng nhỏ hơn nhiều
+    private static final int MAX_CAPACITY = 1 << 20;
+    
+    private long baseDay;        // Epoch day ứng với vị trí 0
+    private long[] daily;        // Tổng của từng ngày (dùng khi cần mở rộng)
+    private long[] tree;         // Cây Fenwick, chỉ số bắt đầu từ 1
+    private boolean empty = true;
+    
+    public DailyRollup() {
+        this.daily = new long[INITIAL_CAPACITY];
+        this.tree = new long[INITIAL_CAPACITY + 1];
+    }
+    
+    /**
+     * Cộng thêm delta (xu) vào ngày epochDay
+     */
+    public void add(long epochDay, long delta) {
+        ensureRange(epochDay);
+        int index = (int) (epochDay - baseDay);
+        daily[index] += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+    
+    /**
+     * Tổng (xu) từ fromDay đến toDay, tính cả 2 đầu
+     */
+    public long sum(long fromDay, long toDay) {
+        if (empty) {
+            return 0;
+        }
+        long first = Math.max(fromDay, baseDay);
+        long last = Math.min(toDay, baseDay + daily.length - 1);
+        if (first > last) {
+            return 0;
+        }
+        return prefix((int) (last - baseDay)) - prefix((int) (first - baseDay) - 1);
+    }
+    
+    /**
+     * Tổng các vị trí từ 0 đến index
+     */
+    private long prefix(int index) {
+        long total = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            total += tree[i];
+        }
+        return total;
+    }
+    
+    /**
+     * Mở rộng dải ngày nếu epochDay nằm ngoài, rồi dựng lại cây trong O(capacity)
+     * @throws IllegalArgumentException nếu dải ngày cần giữ vượt MAX_CAPACITY (trạng thái không đổi)
+     */
+    private void ensureRange(long epochDay) {
+        if (empty) {
+            baseDay = epochDay - daily.length / 2;
+            empty = false;
+            return;
+        }
+        
+        long end = baseDay + daily.length;
+        if (epochDay >= baseDay && epochDay < end) {
+            return;
+        }
+        
+        long newBase = Math.min(baseDay, epochDay);
+        long newEnd = Math.max(end, epochDay + 1);
+        long span = newEnd - newBase;
+        if (span > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Dải ngày quá lớn: " + span + " ngày");
+        }
+        int capacity = daily.length;
+        while (capacity < span) {
+            capacity = (int) Math.min((long) capacity * 2, MAX_CAPACITY);
+        }
+        // Chừa chỗ về phía vừa mở rộng để lần sau ít phải dựng lại
+        if (epochDay < baseDay) {
+            newBase = newEnd - capacity;
+        }
+        
+        long[] newDaily = new long[capacity];
+        System.arraycopy(daily, 0, newDaily, (int) (baseDay - newBase), daily.length);
+        
+        long[] newTree = new long[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            newTree[i] += newDaily[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                newTree[parent] += newTree[i];
+            }
+        }
+        
+        baseDay = newBase;
+        daily = newDaily;
+        tree = newTree;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package models;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Danh sách số nguyên tự giãn (không boxing), dùng cho các chỉ mục theo số dòng
+ */
+class IntList {
+    private int[] values = new int[2];
+    private int size;
+    
+    /**
+     * Danh sách gồm các phần tử [from, to) của mảng (được sao chép)
+     */
+    static IntList of(int[] source, int from, int to) {
+        IntList list = new IntList();
+        list.values = Arrays.copyOfRange(source, from, Math.max(to, from + 2));
+        list.size = to - from;
+        return list;
+    }
+    
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+    
+    /**
+     * Xóa một giá trị (thứ tự các phần tử còn lại có thể thay đổi)
+     */
+    void removeValue(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                values[i] = values[--size];
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Đổi giá trị oldValue thành newValue
+     */
+    void replaceValue(int oldValue, int newValue) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == oldValue) {
+                values[i] = newValue;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Chỉ giữ newSize phần tử đầu
+     */
+    void truncate(int newSize) {
+        size = newSize;
+    }
+    
+    /**
+     * Tìm nhị phân trong đoạn [fromIndex, toIndex) của danh sách đã sắp xếp (kết quả như Arrays.binarySearch)
+     */
+    int binarySearch(int fromIndex, int toIndex, int value) {
+        return Arrays.binarySearch(values, fromIndex, Math.min(toIndex, size), value);
+    }
+    
+    int get(int index) {
+        return values[index];
+    }
+    
+    void set(int index, int value) {
+        values[index] = value;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,402 @@
+package models;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Chỉ mục đảo cho ghi chú giao dịch: từ (đã bỏ dấu, chữ thường) -> danh sách giao dịch chứa từ đó
+ * Mỗi giao dịch được gán một số thứ tự (seq) không đổi khi bảng dời dòng, nên danh sách của mỗi từ
+ * luôn là mảng seq tăng dần: giao của nhiều từ là phép trộn hai mảng đã sắp xếp,
+ * không phải duyệt ghi chú của mọi giao dịch.
+ * Xóa giao dịch chỉ đánh dấu seq là đã xóa (không sửa danh sách của từng từ); khi seq đã xóa nhiều hơn
+ * seq còn dùng, các seq được đánh số lại cho liền nhau (giữ nguyên thứ tự) và các danh sách được dọn,
+ * để bảng seq -> dòng không lớn mãi theo số lần thêm. Mỗi seq còn mang số thứ tự thêm (stamp) không
+ * bao giờ dùng lại và không đổi khi đánh số lại, dùng làm vị trí ổn định cho cursor phân trang.
+ *
+ * Cú pháp truy vấn: các từ cách nhau bởi khoảng trắng là AND, "OR" (hoặc "|") tách các nhóm,
+ * từ kết thúc bằng '*' là tìm theo tiền tố. VD: "tien an", "grab OR be", "gra* thang10".
+ * Không đồng bộ hóa riêng: Account gọi khi đang giữ khóa của nó.
+ */
+class NoteIndex {
+    // Bảng bỏ dấu cho các ký tự < FOLD_LIMIT (gồm mọi chữ tiếng Việt có dấu); 0 = ký tự phân cách
+    private static final int FOLD_LIMIT = 0x2000;
+    private static final char[] FOLD = buildFoldTable();
+    
+    // Danh sách dài gấp hơn chừng này lần thì giao bằng tìm nhị phân thay vì trộn tuần tự
+    private static final int SKIP_RATIO = 16;
+    
+    // Chỉ đánh số lại khi có ít nhất chừng này seq đã xóa
+    static final int COMPACT_MIN_DEAD = 1024;
+    
+    private final NavigableMap<String, IntList> postings;   // Từ -> các seq tăng dần (có thể gồm seq đã xóa)
+    private int[] seqByRow;
+    private int[] rowBySeq;                                  // -1 nếu giao dịch đã bị xóa
+    private long[] stampBySeq;                               // Tăng dần theo seq, giữ nguyên khi đánh số lại
+    private int nextSeq;
+    private long nextStamp;
+    private int liveCount;                                   // Số seq còn ứng với một dòng
+    
+    NoteIndex() {
+        this.postings = new TreeMap<>();
+        this.seqByRow = new int[64];
+        this.rowBySeq = new int[64];
+        this.stampBySeq = new long[64];
+    }
+    
+    /**
+     * Đánh chỉ mục ghi chú của dòng vừa thêm vào cuối bảng
+     */
+    void add(int row, String note) {
+        int seq = nextSeq++;
+        if (row >= seqByRow.length) {
+            seqByRow = Arrays.copyOf(seqByRow, Math.max(row + 1, seqByRow.length * 2));
+        }
+        if (seq >= rowBySeq.length) {
+            rowBySeq = Arrays.copyOf(rowBySeq, rowBySeq.length * 2);
+            stampBySeq = Arrays.copyOf(stampBySeq, rowBySeq.length);
+        }
+        seqByRow[row] = seq;
+        rowBySeq[seq] = row;
+        stampBySeq[seq] = nextStamp++;
+        liveCount++;
+        
+        for (String term : tokenize(note)) {
+            IntList posting = postings.computeIfAbsent(term, t -> new IntList());
+            // Từ lặp lại trong cùng ghi chú chỉ ghi một lần
+            if (posting.isEmpty() || posting.get(posting.size() - 1) != seq) {
+                posting.add(seq);
+            }
+        }
+    }
+    
+    /**
+     * Bỏ dòng sắp bị xóa khỏi chỉ mục: chỉ đánh dấu seq, danh sách của các từ được dọn khi đánh số lại
+     */
+    void remove(int row) {
+        rowBySeq[seqByRow[row]] = -1;
+        liveCount--;
+    }
+    
+    /**
+     * Dòng fromRow được chuyển sang toRow (TransactionTable.removeSwap), seq giữ nguyên
+     */
+    void move(int fromRow, int toRow) {
+        int seq = seqByRow[fromRow];
+        seqByRow[toRow] = seq;
+        rowBySeq[seq] = toRow;
+    }
+    
+    /**
+     * Đánh số lại các seq còn dùng thành 0..liveCount-1 nếu số seq đã xóa vượt số còn lại,
+     * đồng thời bỏ các seq đã xóa khỏi danh sách của từng từ
+     * Thứ tự giữa các seq (và stamp của chúng) được giữ nguyên nên danh sách của mỗi từ vẫn tăng dần.
+     * Account gọi sau khi xóa xong một dòng (sau move); seq lấy từ match() trước đó không còn dùng được,
+     * stamp thì vẫn dùng được.
+     */
+    void compactIfSparse() {
+        int dead = nextSeq - liveCount;
+        if (dead < COMPACT_MIN_DEAD || dead <= liveCount) {
+            return;
+        }
+        
+        int[] newSeqs = new int[nextSeq];   // Seq cũ -> seq mới (chỉ có nghĩa với seq còn dùng)
+        int[] compacted = new int[Math.max(64, liveCount * 2)];
+        long[] compactedStamps = new long[compacted.length];
+        int count = 0;
+        for (int seq = 0; seq < nextSeq; seq++) {
+            int row = rowBySeq[seq];
+            if (row >= 0) {
+                newSeqs[seq] = count;
+                compacted[count] = row;
+                compactedStamps[count] = stampBySeq[seq];
+                seqByRow[row] = count;
+                count++;
+            }
+        }
+        for (Iterator<IntList> it = postings.values().iterator(); it.hasNext(); ) {
+            IntList posting = it.next();
+            int kept = 0;
+            for (int i = 0; i < posting.size(); i++) {
+                int seq = posting.get(i);
+                if (rowBySeq[seq] >= 0) {
+                    posting.set(kept++, newSeqs[seq]);
+                }
+            }
+            posting.truncate(kept);
+            if (kept == 0) {
+                it.remove();
+            }
+        }
+        rowBySeq = compacted;
+        stampBySeq = compactedStamps;
+        nextSeq = count;
+    }
+    
+    /**
+     * Các seq (còn dùng) khớp truy vấn, tăng dần (seq lớn hơn là giao dịch thêm sau)
+     * Kết quả có thể là chính danh sách trong chỉ mục nên người gọi không được sửa.
+     */
+    IntList match(String query) {
+        IntList result = null;
+        for (List<String> group : parseQuery(query)) {
+            IntList groupResult = matchAll(group);
+            result = result == null ? groupResult : union(result, groupResult);
+        }
+        if (result == null) {
+            return new IntList();
+        }
+        if (liveCount == nextSeq) {
+            return result;   // Không có seq đã xóa
+        }
+        
+        IntList live = new IntList();
+        for (int i = 0; i < result.size(); i++) {
+            if (rowBySeq[result.get(i)] >= 0) {
+                live.add(result.get(i));
+            }
+        }
+        return live;
+    }
+    
+    int rowOf(int seq) {
+        return rowBySeq[seq];
+    }
+    
+    int seqOf(int row) {
+        return seqByRow[row];
+    }
+    
+    /**
+     * Số thứ tự thêm của seq, không đổi khi đánh số lại (dùng cho cursor)
+     */
+    long stampOf(int seq) {
+        return stampBySeq[seq];
+    }
+    
+    /**
+     * Seq nhỏ nhất có stamp >= stamp (nextSeq nếu không có): các seq nhỏ hơn là giao dịch thêm trước stamp
+     */
+    int firstSeqFrom(long stamp) {
+        int index = Arrays.binarySearch(stampBySeq, 0, nextSeq, stamp);
+        return index >= 0 ? index : -index - 1;
+    }
+    
+    /**
+     * Giao các từ trong một nhóm AND, bắt đầu từ danh sách ngắn nhất
+     */
+    private IntList matchAll(List<String> terms) {
+        List<IntList> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            IntList posting = matchTerm(term);
+            if (posting.isEmpty()) {
+                return posting;
+            }
+            lists.add(posting);
+        }
+        if (lists.isEmpty()) {
+            return new IntList();
+        }
+        
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        IntList result = lists.get(0);
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+    
+    /**
+     * Danh sách của một từ; từ có '*' ở cuối là hợp của mọi từ bắt đầu bằng tiền tố đó
+     */
+    private IntList matchTerm(String term) {
+        if (!term.endsWith("*")) {
+            IntList posting = postings.get(term);
+            return posting == null ? new IntList() : posting;
+        }
+        
+        String prefix = term.substring(0, term.length() - 1);
+        List<IntList> lists = new ArrayList<>(postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+        if (lists.isEmpty()) {
+            return new IntList();
+        }
+        return lists.size() == 1 ? lists.get(0) : unionAll(lists);
+    }
+    
+    /**
+     * Giao hai danh sách tăng dần
+     * Hai danh sách dài gần bằng nhau thì trộn tuần tự O(ngắn + dài); nếu danh sách dài hơn hẳn
+     * thì tìm từng phần tử của danh sách ngắn bằng bước nhảy gấp đôi rồi tìm nhị phân (galloping),
+     * chỉ tốn O(ngắn * log khoảng cách giữa hai lần khớp).
+     */
+    private static IntList intersect(IntList small, IntList large) {
+        IntList result = new IntList();
+        if (large.size() / SKIP_RATIO < small.size()) {
+            int i = 0;
+            int j = 0;
+            while (i < small.size() && j < large.size()) {
+                int x = small.get(i);
+                int y = large.get(j);
+                if (x == y) {
+                    result.add(x);
+                }
+                if (x <= y) {
+                    i++;
+                }
+                if (y <= x) {
+                    j++;
+                }
+            }
+            return result;
+        }
+        
+        int from = 0;
+        for (int i = 0; i < small.size() && from < large.size(); i++) {
+            int value = small.get(i);
+            int step = 1;
+            while (from + step < large.size() && large.get(from + step) < value) {
+                step <<= 1;
+            }
+            int index = large.binarySearch(from, from + step + 1, value);
+            if (index >= 0) {
+                result.add(value);
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Hợp hai danh sách tăng dần (trộn, bỏ trùng)
+     */
+    private static IntList union(IntList a, IntList b) {
+        IntList result = new IntList();
+        int i = 0;
+        int j = 0;
+        while (i < a.size() || j < b.size()) {
+            int x = i < a.size() ? a.get(i) : Integer.MAX_VALUE;
+            int y = j < b.size() ? b.get(j) : Integer.MAX_VALUE;
+            result.add(Math.min(x, y));
+            if (x <= y) {
+                i++;
+            }
+            if (y <= x) {
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Hợp nhiều danh sách tăng dần trong một lần trộn k đường (vd: mọi từ của tiền tố "a*")
+     * Hàng đợi ưu tiên giữ danh sách có phần tử đầu nhỏ nhất: O(tổng độ dài * log k)
+     * thay vì trộn lần lượt từng danh sách vào kết quả (O(tổng độ dài * k)).
+     */
+    private static IntList unionAll(List<IntList> lists) {
+        int[] positions = new int[lists.size()];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(lists.size(),
+            (a, b) -> Integer.compare(lists.get(a).get(positions[a]), lists.get(b).get(positions[b])));
+        for (int i = 0; i < lists.size(); i++) {
+            heads.add(i);
+        }
+        
+        IntList result = new IntList();
+        while (!heads.isEmpty()) {
+            Integer list = heads.poll();
+            int value = lists.get(list).get(positions[list]);
+            if (result.isEmpty() || result.get(result.size() - 1) != value) {
+                result.add(value);
+            }
+            if (++positions[list] < lists.get(list).size()) {
+                heads.add(list);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Tách truy vấn thành các nhóm OR, mỗi nhóm là danh sách từ AND
+     */
+    static List<List<String>> parseQuery(String query) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> group = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            if (word.equals("OR") || word.equals("|")) {
+                if (!group.isEmpty()) {
+                    groups.add(group);
+                    group = new ArrayList<>();
+                }
+                continue;
+            }
+            
+            // Một từ có dấu câu (vd "grab-food") thành nhiều từ AND; '*' áp dụng cho từ cuối
+            List<String> terms = tokenize(word);
+            if (word.endsWith("*") && !terms.isEmpty()) {
+                terms.set(terms.size() - 1, terms.get(terms.size() - 1) + "*");
+            }
+            group.addAll(terms);
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+    
+    /**
+     * Tách văn bản thành các từ đã bỏ dấu và viết thường ("Tiền ĂN đêm" -> tien, an, dem)
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char ch = fold(text.charAt(i));
+            if (ch != 0) {
+                term.append(ch);
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+    
+    /**
+     * Bỏ dấu và viết thường một ký tự, trả về 0 nếu không phải chữ hoặc số
+     */
+    static char fold(char ch) {
+        if (ch < FOLD_LIMIT) {
+            return FOLD[ch];
+        }
+        return Character.isLetterOrDigit(ch) ? Character.toLowerCase(ch) : 0;
+    }
+    
+    private static char[] buildFoldTable() {
+        char[] table = new char[FOLD_LIMIT];
+        for (char ch = 0; ch < FOLD_LIMIT; ch++) {
+            if (!Character.isLetterOrDigit(ch)) {
+                continue;
+            }
+            // Tách dấu (NFD) rồi giữ ký tự gốc: "ế" -> "e" + dấu mũ + dấu sắc
+            String decomposed = Normalizer.normalize(String.valueOf(ch), Normalizer.Form.NFD);
+            table[ch] = Character.toLowerCase(decomposed.charAt(0));
+        }
+        // "đ" không tách được bằng NFD
+        table['đ'] = 'd';
+        table['Đ'] = 'd';
+        return table;
+    }
+}
\ No newline at end of file
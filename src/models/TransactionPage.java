@@ -0,0 +1,100 @@
+package models;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Một trang giao dịch lấy bằng Account.getPage
+ * nextCursor là vị trí "mờ" (chuỗi Base64) của giao dịch cuối trang, truyền lại để lấy trang sau.
+ * Cursor ghi nhớ khóa sắp xếp (ngày, ID) chứ không phải số thứ tự, nên thêm/xóa giao dịch
+ * giữa hai lần gọi không làm trang sau bị lặp hay sót giao dịch.
+ */
+public class TransactionPage {
+    /**
+     * Thứ tự sắp xếp (các giao dịch cùng ngày xếp theo ID)
+     */
+    public enum Order {
+        DATE_ASC,    // Cũ nhất trước
+        DATE_DESC,   // Mới nhất trước
+        ID_ASC,
+        ID_DESC
+    }
+    
+    /**
+     * Khóa sắp xếp của một giao dịch (nội dung đã giải mã của cursor)
+     */
+    static class Position {
+        final long key;      // Epoch day, hoặc số thứ tự trong chỉ mục ghi chú
+        final String id;
+        
+        Position(long key, String id) {
+            this.key = key;
+            this.id = id;
+        }
+    }
+    
+    private final List<Transaction> items;
+    private final String nextCursor;
+    
+    TransactionPage(List<Transaction> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    /**
+     * Tạo cursor từ khóa sắp xếp của giao dịch cuối trang
+     */
+    static String encodeCursor(Order order, long epochDay, String id) {
+        return encodeCursor(order.name(), epochDay, id);
+    }
+    
+    /**
+     * Cursor cho các cách duyệt khác ngoài Order (vd: kết quả tìm theo ghi chú)
+     */
+    static String encodeCursor(String kind, long position, String id) {
+        String key = kind + "|" + position + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Đọc cursor thành khóa sắp xếp
+     * @throws IllegalArgumentException nếu cursor sai định dạng hoặc thuộc thứ tự sắp xếp khác
+     */
+    static Position decodeCursor(Order order, String cursor) {
+        return decodeCursor(order.name(), cursor);
+    }
+    
+    static Position decodeCursor(String kind, String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = key.split("\\|", 3);
+            if (parts.length == 3 && parts[0].equals(kind)) {
+                return new Position(Long.parseLong(parts[1]), parts[2]);
+            }
+        } catch (IllegalArgumentException e) {
+            // Xử lý chung bên dưới
+        }
+        throw new IllegalArgumentException("Cursor không hợp lệ: " + cursor);
+    }
+    
+    // ===== GETTERS =====
+    public List<Transaction> getItems() {
+        return items;
+    }
+    
+    /**
+     * Cursor của trang sau, null nếu đây là trang cuối
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+    
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package models;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Điều kiện tìm giao dịch kết hợp: loại, tập danh mục, khoảng ngày, khoảng số tiền và từ khóa ghi chú
+ * Điều kiện nào không đặt thì không lọc. Chạy bằng Account.forEachMatch / count / find / getPage:
+ * Account chọn chỉ mục hẹp nhất (ngày hoặc ghi chú) để lấy các dòng ứng viên,
+ * rồi kiểm tra các điều kiện còn lại trực tiếp trên các cột của bảng, không tạo danh sách trung gian.
+ *
+ * VD: new TransactionQuery().type("CHI").category("Ăn uống", "Di chuyển")
+ *         .between(from, to).amountBetween(50000, 500000).note("grab")
+ */
+public class TransactionQuery {
+    /**
+     * Cách Account lấy các dòng ứng viên cho truy vấn
+     */
+    public enum Plan {
+        NOTE_INDEX,   // Danh sách giao dịch của các từ trong ghi chú
+        DATE_INDEX,   // Chỉ mục ngày, chỉ duyệt các ngày trong khoảng
+        FULL_SCAN     // Duyệt cả bảng
+    }
+    
+    private String type;                  // "THU", "CHI" hoặc null
+    private Set<String> categoryNames;    // Tên danh mục (chữ thường) hoặc null
+    private LocalDate from;
+    private LocalDate to;
+    private long minAmountMinor;
+    private long maxAmountMinor;
+    private String noteQuery;             // Cú pháp như Account.searchNotes
+    
+    public TransactionQuery() {
+        this.minAmountMinor = Long.MIN_VALUE;
+        this.maxAmountMinor = Long.MAX_VALUE;
+    }
+    
+    /**
+     * Chỉ lấy thu nhập ("THU") hoặc chi tiêu ("CHI")
+     */
+    public TransactionQuery type(String type) {
+        if (!type.equals("THU") && !type.equals("CHI")) {
+            throw new IllegalArgumentException("Loại giao dịch phải là THU hoặc CHI: " + type);
+        }
+        this.type = type;
+        return this;
+    }
+    
+    /**
+     * Thuộc một trong các danh mục (theo tên, không phân biệt hoa thường); gọi nhiều lần thì cộng dồn
+     */
+    public TransactionQuery category(String... names) {
+        if (categoryNames == null) {
+            categoryNames = new LinkedHashSet<>();
+        }
+        for (String name : names) {
+            categoryNames.add(name.toLowerCase());
+        }
+        return this;
+    }
+    
+    /**
+     * Trong khoảng ngày [from, to]; null ở một đầu là không giới hạn đầu đó
+     */
+    public TransactionQuery between(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+    
+    /**
+     * Số tiền trong khoảng [min, max] (VND)
+     */
+    public TransactionQuery amountBetween(double min, double max) {
+        this.minAmountMinor = Math.round(min * 100);
+        this.maxAmountMinor = Math.round(max * 100);
+        return this;
+    }
+    
+    public TransactionQuery minAmount(double min) {
+        this.minAmountMinor = Math.round(min * 100);
+        return this;
+    }
+    
+    public TransactionQuery maxAmount(double max) {
+        this.maxAmountMinor = Math.round(max * 100);
+        return this;
+    }
+    
+    /**
+     * Ghi chú khớp từ khóa (AND theo khoảng trắng, "OR", '*' cuối từ là tiền tố)
+     */
+    public TransactionQuery note(String noteQuery) {
+        this.noteQuery = noteQuery == null || noteQuery.isBlank() ? null : noteQuery;
+        return this;
+    }
+    
+    // ===== GETTERS =====
+    public String getType() {
+        return type;
+    }
+    
+    public Set<String> getCategoryNames() {
+        return categoryNames;
+    }
+    
+    public LocalDate getFrom() {
+        return from;
+    }
+    
+    public LocalDate getTo() {
+        return to;
+    }
+    
+    long getMinAmountMinor() {
+        return minAmountMinor;
+    }
+    
+    long getMaxAmountMinor() {
+        return maxAmountMinor;
+    }
+    
+    public String getNoteQuery() {
+        return noteQuery;
+    }
+    
+    boolean hasDateRange() {
+        return from != null || to != null;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("TransactionQuery{");
+        if (type != null) {
+            sb.append(" type=").append(type);
+        }
+        if (categoryNames != null) {
+            sb.append(" category=").append(categoryNames);
+        }
+        if (hasDateRange()) {
+            sb.append(" date=[").append(from).append(", ").append(to).append(']');
+        }
+        if (minAmountMinor != Long.MIN_VALUE || maxAmountMinor != Long.MAX_VALUE) {
+            sb.append(" amount=[").append(minAmountMinor / 100.0).append(", ").append(maxAmountMinor / 100.0).append(']');
+        }
+        if (noteQuery != null) {
+            sb.append(" note=\"").append(noteQuery).append('"');
+        }
+        return sb.append(" }").toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,254 @@
+package models;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Bảng giao dịch lưu theo cột (struct-of-arrays)
+ * Mỗi dòng chỉ gồm các giá trị nguyên thủy trong các mảng song song
+ * (số tiền theo xu, epoch day, loại, số thứ tự danh mục) cùng tham chiếu tới ID và ghi chú.
+ * Đối tượng Transaction chỉ được tạo khi cần (get).
+ * Bảng dựng từ file columnar có thể để ID và ghi chú ở dạng chưa giải mã: chúng được đọc từ nguồn
+ * (idSource / noteSource) ở lần truy cập đầu tiên rồi giữ lại trong mảng.
+ */
+public class TransactionTable {
+    private static final int INITIAL_CAPACITY = 64;
+    
+    private static final byte TYPE_INCOME = 0;
+    private static final byte TYPE_EXPENSE = 1;
+    
+    // Giá trị giữ chỗ (so sánh theo tham chiếu) của ID / ghi chú chưa giải mã (null vẫn là ghi chú null thật)
+    private static final String NOT_DECODED = new String("");
+    
+    private long[] amounts;           // Số tiền (xu) - số nguyên nên cộng không bị sai số
+    private int[] days;               // Ngày (epoch day)
+    private byte[] types;             // 0 = THU, 1 = CHI
+    private short[] categoryOrdinals; // Vị trí danh mục trong categoryList
+    private String[] ids;             // NOT_DECODED: chưa giải mã, lấy từ idSource theo cùng số dòng
+    private String[] notes;
+    private int size;
+    
+    // Nguồn ID / ghi chú của các dòng chưa giải mã (null nếu mọi dòng đã có sẵn)
+    private IntFunction<String> idSource;
+    private IntFunction<String> noteSource;
+    
+    // Bảng tra danh mục <-> số thứ tự
+    private List<Category> categoryList;
+    private Map<Category, Integer> ordinalByCategory;
+    
+    public TransactionTable() {
+        this.amounts = new long[INITIAL_CAPACITY];
+        this.days = new int[INITIAL_CAPACITY];
+        this.types = new byte[INITIAL_CAPACITY];
+        this.categoryOrdinals = new short[INITIAL_CAPACITY];
+        this.ids = new String[INITIAL_CAPACITY];
+        this.notes = new String[INITIAL_CAPACITY];
+        this.categoryList = new ArrayList<>();
+        this.ordinalByCategory = new IdentityHashMap<>();
+    }
+    
+    /**
+     * Dựng bảng từ các cột có sẵn (vd: đọc từ file columnar) mà không tạo Transaction nào
+     * Bảng nhận luôn các mảng, không sao chép; mọi mảng phải cùng độ dài (= số dòng).
+     * @param types 0 = THU, 1 = CHI
+     * @param categoryOrdinals vị trí danh mục của từng dòng trong categories
+     * @throws IllegalArgumentException nếu độ dài các cột lệch nhau hoặc có loại / danh mục không hợp lệ
+     */
+    public static TransactionTable fromColumns(long[] amounts, int[] days, byte[] types, short[] categoryOrdinals,
+                                               String[] ids, String[] notes, List<Category> categories) {
+        int size = amounts.length;
+        if (days.length != size || types.length != size || categoryOrdinals.length != size
+                || ids.length != size || notes.length != size) {
+            throw new IllegalArgumentException("Các cột không cùng số dòng");
+        }
+        
+        TransactionTable table = new TransactionTable();
+        
+        // Đăng ký danh mục; hai vị trí cùng một danh mục thì gộp về một số thứ tự
+        short[] remap = new short[categories.size()];
+        boolean identity = true;
+        for (int i = 0; i < remap.length; i++) {
+            remap[i] = (short) table.ordinalOf(categories.get(i));
+            identity &= remap[i] == i;
+        }
+        for (int row = 0; row < size; row++) {
+            int ordinal = categoryOrdinals[row];
+            if (ordinal < 0 || ordinal >= remap.length || (types[row] != TYPE_INCOME && types[row] != TYPE_EXPENSE)) {
+                throw new IllegalArgumentException("Dòng " + row + " có loại hoặc danh mục không hợp lệ");
+            }
+            if (!identity) {
+                categoryOrdinals[row] = remap[ordinal];
+            }
+        }
+        
+        table.amounts = amounts;
+        table.days = days;
+        table.types = types;
+        table.categoryOrdinals = categoryOrdinals;
+        table.ids = ids;
+        table.notes = notes;
+        table.size = size;
+        return table;
+    }
+    
+    /**
+     * Như fromColumns nhưng ID và ghi chú chưa được giải mã: dòng row lấy chúng từ idSource.apply(row)
+     * và noteSource.apply(row) ở lần đọc đầu tiên (vd: từ vùng chuỗi của file columnar đã map vào bộ nhớ)
+     * Nguồn phải dùng được từ nhiều luồng đọc cùng lúc và còn dùng được chừng nào bảng còn dùng.
+     */
+    public static TransactionTable fromColumns(long[] amounts, int[] days, byte[] types, short[] categoryOrdinals,
+                                               IntFunction<String> idSource, IntFunction<String> noteSource,
+                                               List<Category> categories) {
+        String[] ids = new String[amounts.length];
+        String[] notes = new String[amounts.length];
+        Arrays.fill(ids, NOT_DECODED);
+        Arrays.fill(notes, NOT_DECODED);
+        TransactionTable table = fromColumns(amounts, days, types, categoryOrdinals, ids, notes, categories);
+        table.idSource = idSource;
+        table.noteSource = noteSource;
+        return table;
+    }
+    
+    /**
+     * Thêm một giao dịch vào cuối bảng
+     * @return số thứ tự dòng vừa thêm
+     */
+    public int add(Transaction transaction) {
+        if (size == amounts.length) {
+            grow();
+        }
+        
+        int row = size++;
+        amounts[row] = Math.round(transaction.getAmount() * 100);
+        days[row] = (int) transaction.getDate().toEpochDay();
+        types[row] = transaction instanceof Income ? TYPE_INCOME : TYPE_EXPENSE;
+        categoryOrdinals[row] = (short) ordinalOf(transaction.getCategory());
+        ids[row] = transaction.getId();
+        notes[row] = transaction.getNote();
+        return row;
+    }
+    
+    /**
+     * Xóa một dòng bằng cách chuyển dòng cuối vào chỗ trống
+     */
+    public void removeSwap(int row) {
+        int last = --size;
+        if (row != last) {
+            amounts[row] = amounts[last];
+            days[row] = days[last];
+            types[row] = types[last];
+            categoryOrdinals[row] = categoryOrdinals[last];
+            // Giải mã trước khi chuyển: nguồn chỉ biết số dòng ban đầu
+            ids[row] = getId(last);
+            notes[row] = getNote(last);
+        }
+        ids[last] = null;
+        notes[last] = null;
+    }
+    
+    /**
+     * Tạo đối tượng Transaction cho một dòng
+     */
+    public Transaction get(int row) {
+        LocalDate date = LocalDate.ofEpochDay(days[row]);
+        double amount = amounts[row] / 100.0;
+        Category category = categoryList.get(categoryOrdinals[row]);
+        
+        if (types[row] == TYPE_INCOME) {
+            return new Income(getId(row), date, amount, category, getNote(row));
+        } else {
+            return new Expense(getId(row), date, amount, category, getNote(row));
+        }
+    }
+    
+    /**
+     * Số thứ tự của danh mục, đăng ký mới nếu chưa có
+     */
+    private int ordinalOf(Category category) {
+        Integer ordinal = ordinalByCategory.get(category);
+        if (ordinal == null) {
+            ordinal = categoryList.size();
+            categoryList.add(category);
+            ordinalByCategory.put(category, ordinal);
+        }
+        return ordinal;
+    }
+    
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, amounts.length * 2);
+        amounts = Arrays.copyOf(amounts, capacity);
+        days = Arrays.copyOf(days, capacity);
+        types = Arrays.copyOf(types, capacity);
+        categoryOrdinals = Arrays.copyOf(categoryOrdinals, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        notes = Arrays.copyOf(notes, capacity);
+    }
+    
+    // ===== GETTERS =====
+    public int size() {
+        return size;
+    }
+    
+    public long getAmountMinor(int row) {
+        return amounts[row];
+    }
+    
+    public int getEpochDay(int row) {
+        return days[row];
+    }
+    
+    public boolean isIncome(int row) {
+        return types[row] == TYPE_INCOME;
+    }
+    
+    public String getType(int row) {
+        return types[row] == TYPE_INCOME ? "THU" : "CHI";
+    }
+    
+    public int getCategoryOrdinal(int row) {
+        return categoryOrdinals[row];
+    }
+    
+    public Category getCategory(int row) {
+        return categoryList.get(categoryOrdinals[row]);
+    }
+    
+    /**
+     * ID của dòng (giải mã ở lần đọc đầu nếu bảng dựng từ nguồn chưa giải mã)
+     * Có thể gọi khi chỉ giữ khóa đọc: nhiều luồng cùng giải mã một dòng chỉ ghi cùng một giá trị,
+     * và String bất biến nên luồng khác đọc thấy chuỗi đầy đủ.
+     */
+    public String getId(int row) {
+        String id = ids[row];
+        if (id == NOT_DECODED) {
+            id = idSource.apply(row);
+            ids[row] = id;
+        }
+        return id;
+    }
+    
+    public String getNote(int row) {
+        String note = notes[row];
+        if (note == NOT_DECODED) {
+            note = noteSource.apply(row);
+            notes[row] = note;
+        }
+        return note;
+    }
+    
+    /**
+     * Số danh mục đã đăng ký (số thứ tự hợp lệ từ 0 đến categoryCount - 1)
+     */
+    public int getCategoryCount() {
+        return categoryList.size();
+    }
+    
+    public Category getCategoryByOrdinal(int ordinal) {
+        return categoryList.get(ordinal);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package services;
+
+import models.*;
+import java.io.File;
+import java.util.*;
+
+/**
+ * Quản lý nhiều tài khoản, mỗi tài khoản một thư mục dữ liệu riêng (data/accounts/<id>)
+ * Tài khoản chỉ được đọc từ đĩa khi được truy cập lần đầu, và chỉ tối đa capacity tài khoản
+ * dùng gần nhất được giữ trong bộ nhớ (LRU). Tài khoản bị loại được ghi lại xuống đĩa trước khi bỏ
+ * nếu đã thay đổi kể từ lần đọc / lưu gần nhất (so theo Account.getVersion).
+ * Các phương thức được đồng bộ hóa; không nên giữ tham chiếu Account lâu sau khi lấy ra
+ * vì tài khoản có thể bị loại và đọc lại thành đối tượng khác.
+ */
+public class AccountRegistry {
+    public static final String ACCOUNTS_DIR = "data/accounts";
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    /**
+     * Tài khoản đang nằm trong bộ nhớ cùng FileManager trỏ tới thư mục của nó
+     */
+    private static class Resident {
+        final Account account;
+        final FileManager fileManager;
+        long savedVersion;   // Phiên bản của tài khoản lúc đọc / lưu gần nhất
+        
+        Resident(Account account, FileManager fileManager) {
+            this.account = account;
+            this.fileManager = fileManager;
+            this.savedVersion = account.getVersion();
+        }
+        
+        /**
+         * Ghi xuống đĩa nếu tài khoản đã đổi từ lần đọc / lưu gần nhất
+         * @return false nếu lưu thất bại
+         */
+        boolean saveIfChanged() {
+            long version = account.getVersion();
+            if (version == savedVersion) {
+                return true;
+            }
+            if (!fileManager.writeSnapshot(account)) {
+                return false;
+            }
+            savedVersion = version;
+            return true;
+        }
+    }
+    
+    private final String rootDir;
+    private final int capacity;
+    private final LinkedHashMap<String, Resident> residents;   // Thứ tự truy cập: cũ nhất ở đầu
+    private int loadCount;
+    private int evictionCount;
+    
+    public AccountRegistry() {
+        this(ACCOUNTS_DIR, DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * @param capacity số tài khoản tối đa giữ trong bộ nhớ
+     */
+    public AccountRegistry(String rootDir, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity phải lớn hơn 0");
+        }
+        this.rootDir = rootDir;
+        this.capacity = capacity;
+        this.residents = new LinkedHashMap<>(16, 0.75f, true);
+        new File(rootDir).mkdirs();
+    }
+    
+    /**
+     * Lấy tài khoản theo ID, đọc từ đĩa nếu chưa có trong bộ nhớ
+     * (tạo tài khoản mới nếu thư mục chưa tồn tại)
+     */
+    public synchronized Account getAccount(String accountId) {
+        return resident(accountId).account;
+    }
+    
+    /**
+     * FileManager của tài khoản, dùng để ghi journal sau mỗi thay đổi
+     */
+    public synchronized FileManager getFileManager(String accountId) {
+        return resident(accountId).fileManager;
+    }
+    
+    private Resident resident(String accountId) {
+        Resident resident = residents.get(accountId);
+        if (resident != null) {
+            return resident;
+        }
+        
+        FileManager fileManager = new FileManager(accountDir(accountId));
+        fileManager.setQuiet(true);
+        boolean existed = fileManager.hasExistingData();
+        Account account = fileManager.loadData();
+        if (!existed) {
+            account.setName(accountId);
+        }
+        
+        resident = new Resident(account, fileManager);
+        residents.put(accountId, resident);
+        loadCount++;
+        evictIfNeeded();
+        return resident;
+    }
+    
+    /**
+     * Loại các tài khoản lâu không dùng nhất cho tới khi còn đúng capacity, ghi lại trước khi bỏ nếu đã đổi
+     * Tài khoản lưu thất bại được giữ lại trong bộ nhớ để không mất thay đổi.
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Resident>> it = residents.entrySet().iterator();
+        while (residents.size() > capacity && it.hasNext()) {
+            Resident eldest = it.next().getValue();
+            if (eldest.saveIfChanged()) {
+                it.remove();
+                evictionCount++;
+            }
+        }
+    }
+    
+    /**
+     * Ghi xuống đĩa mọi tài khoản đang trong bộ nhớ đã thay đổi (vd: khi thoát chương trình)
+     * @return false nếu có tài khoản lưu thất bại
+     */
+    public synchronized boolean flushAll() {
+        boolean success = true;
+        for (Resident resident : residents.values()) {
+            success &= resident.saveIfChanged();
+        }
+        return success;
+    }
+    
+    /**
+     * ID của mọi tài khoản đã lưu trên đĩa (không đọc dữ liệu)
+     */
+    public synchronized List<String> listAccountIds() {
+        Set<String> ids = new TreeSet<>(residents.keySet());
+        File[] dirs = new File(rootDir).listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                ids.add(dir.getName());
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+    
+    /**
+     * ID chỉ gồm chữ, số, '-' và '_' để dùng làm tên thư mục an toàn
+     */
+    private String accountDir(String accountId) {
+        if (accountId == null || !accountId.matches("[\\p{L}\\p{N}_-]{1,64}")) {
+            throw new IllegalArgumentException("ID tài khoản không hợp lệ: " + accountId);
+        }
+        return rootDir + "/" + accountId;
+    }
+    
+    // ===== GETTERS =====
+    public synchronized int getResidentCount() {
+        return residents.size();
+    }
+    
+    public synchronized boolean isResident(String accountId) {
+        return residents.containsKey(accountId);
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public synchronized int getLoadCount() {
+        return loadCount;
+    }
+    
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,224 @@
+package services;
+
+import models.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Ảnh chụp nhị phân toàn bộ trạng thái tài khoản (tên, số dư, danh mục kèm ngân sách, mọi giao dịch)
+ * để khởi động nhanh: cả file được đọc bằng một lần FileChannel.read rồi giải mã trực tiếp,
+ * không phải tách chuỗi hay parse ngày/số tiền như file text.
+ *
+ * Cấu trúc file (big-endian):
+ *   Header:    MAGIC | VERSION | dấu vân tay account.txt và file giao dịch (độ dài, thời điểm sửa)
+ *   Tài khoản: tên | số dư (xu)
+ *   Danh mục:  [type | ngân sách | tên] x số danh mục của tài khoản
+ *   Bảng:      [type | tên] x số danh mục trong bảng giao dịch
+ *   Cột:       amount (long) x n | epochDay (int) x n | categoryOrdinal (short) x n | type (byte) x n
+ *   Chuỗi:     [ID | ghi chú] x n
+ * Chuỗi được ghi dạng độ dài (int) + UTF-8.
+ * Khi đọc, các cột được giải mã thẳng vào mảng và trao cho bảng giao dịch (như file columnar),
+ * không dựng lại Transaction nào.
+ */
+public class AccountSnapshot {
+    private static final int MAGIC = 0x50464D53;   // "PFMS"
+    private static final int VERSION = 2;  // 2: độ dài chuỗi dạng int
+    private static final int FINGERPRINT_POS = 8;  // Vị trí 4 giá trị long dấu vân tay trong header
+    
+    private static final byte TYPE_INCOME = 0;
+    private static final byte TYPE_EXPENSE = 1;
+    
+    private AccountSnapshot() {
+    }
+    
+    /**
+     * Ghi ảnh chụp (người gọi phải giữ khóa đọc của tài khoản)
+     * Dấu vân tay để trống, điền sau bằng stamp() khi các file text đã được ghi xong.
+     */
+    public static void write(Account account, File file) throws IOException {
+        TransactionTable table = account.getTable();
+        int rows = table.size();
+        
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (int i = 0; i < 4; i++) {
+                out.writeLong(0);
+            }
+            
+            writeString(out, account.getName());
+            out.writeLong(Math.round(account.getBalance() * 100));
+            
+            List<Category> categories = account.getCategories();
+            out.writeInt(categories.size());
+            for (Category c : categories) {
+                out.writeByte(typeCode(c.getType()));
+                out.writeDouble(c.getBudget());
+                writeString(out, c.getName());
+            }
+            
+            out.writeInt(table.getCategoryCount());
+            for (int ordinal = 0; ordinal < table.getCategoryCount(); ordinal++) {
+                Category c = table.getCategoryByOrdinal(ordinal);
+                out.writeByte(typeCode(c.getType()));
+                writeString(out, c.getName());
+            }
+            
+            out.writeInt(rows);
+            for (int i = 0; i < rows; i++) {
+                out.writeLong(table.getAmountMinor(i));
+            }
+            for (int i = 0; i < rows; i++) {
+                out.writeInt(table.getEpochDay(i));
+            }
+            for (int i = 0; i < rows; i++) {
+                out.writeShort(table.getCategoryOrdinal(i));
+            }
+            for (int i = 0; i < rows; i++) {
+                out.writeByte(table.isIncome(i) ? TYPE_INCOME : TYPE_EXPENSE);
+            }
+            for (int i = 0; i < rows; i++) {
+                writeString(out, table.getId(i));
+                writeString(out, table.getNote(i));
+            }
+        }
+    }
+    
+    /**
+     * Ghi dấu vân tay (độ dài, thời điểm sửa) của account.txt và file giao dịch vào header
+     */
+    public static void stamp(File file, File accountFile, File dataFile) throws IOException {
+        ByteBuffer fingerprint = ByteBuffer.allocate(32);
+        fingerprint.putLong(accountFile.length()).putLong(accountFile.lastModified());
+        fingerprint.putLong(dataFile.length()).putLong(dataFile.lastModified());
+        fingerprint.flip();
+        
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            while (fingerprint.hasRemaining()) {
+                channel.write(fingerprint, FINGERPRINT_POS + fingerprint.position());
+            }
+        }
+    }
+    
+    /**
+     * Ảnh chụp còn khớp với các file text không (file text bị sửa sau đó thì ảnh chụp đã cũ)
+     */
+    public static boolean isCurrent(File file, File accountFile, File dataFile) {
+        if (!file.exists() || !accountFile.exists() || !dataFile.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC && in.readInt() == VERSION
+                && in.readLong() == accountFile.length() && in.readLong() == accountFile.lastModified()
+                && in.readLong() == dataFile.length() && in.readLong() == dataFile.lastModified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Đọc cả file bằng một lần FileChannel.read và dựng lại tài khoản
+     * Các cột được chép thẳng vào mảng rồi nạp bằng Account.restoreTable như file columnar.
+     */
+    public static Account read(File file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // đọc tới khi đầy buffer
+            }
+        }
+        buffer.flip();
+        
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("File không đúng định dạng snapshot");
+        }
+        buffer.position(FINGERPRINT_POS + 32);
+        
+        String name = readString(buffer);
+        Account account = new Account(name, buffer.getLong() / 100.0);
+        
+        // Danh mục của tài khoản kèm ngân sách (giống account.txt)
+        int categoryCount = buffer.getInt();
+        for (int i = 0; i < categoryCount; i++) {
+            String type = typeName(buffer.get());
+            double budget = buffer.getDouble();
+            Category category = resolveCategory(account, readString(buffer), type);
+            category.setBudget(budget);
+        }
+        
+        // Danh mục theo số thứ tự trong bảng giao dịch
+        Category[] byOrdinal = new Category[buffer.getInt()];
+        for (int ordinal = 0; ordinal < byOrdinal.length; ordinal++) {
+            String type = typeName(buffer.get());
+            byOrdinal[ordinal] = resolveCategory(account, readString(buffer), type);
+        }
+        
+        int rows = buffer.getInt();
+        long[] amounts = new long[rows];
+        int[] days = new int[rows];
+        short[] categoryOrdinals = new short[rows];
+        byte[] types = new byte[rows];
+        buffer.asLongBuffer().get(amounts);
+        buffer.position(buffer.position() + rows * 8);
+        buffer.asIntBuffer().get(days);
+        buffer.position(buffer.position() + rows * 4);
+        buffer.asShortBuffer().get(categoryOrdinals);
+        buffer.position(buffer.position() + rows * 2);
+        buffer.get(types);
+        
+        String[] ids = new String[rows];
+        String[] notes = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = readString(buffer);
+            notes[i] = readString(buffer);
+        }
+        
+        // Số dư đã lưu giữ nguyên: restoreTable không cộng lại số tiền của các dòng
+        try {
+            account.restoreTable(TransactionTable.fromColumns(amounts, days, types, categoryOrdinals,
+                ids, notes, Arrays.asList(byOrdinal)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot có dữ liệu không hợp lệ: " + e.getMessage(), e);
+        }
+        return account;
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    private static Category resolveCategory(Account account, String name, String type) {
+        for (Category c : account.getCategoriesByType(type)) {
+            if (c.getName().equalsIgnoreCase(name)) {
+                return c;
+            }
+        }
+        Category category = new Category(name, type);
+        account.addCategory(category);
+        return category;
+    }
+    
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String s = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+    
+    private static byte typeCode(String type) {
+        return type.equals("THU") ? TYPE_INCOME : TYPE_EXPENSE;
+    }
+    
+    private static String typeName(byte code) {
+        return code == TYPE_INCOME ? "THU" : "CHI";
+    }
+}
\ No newline at end of file
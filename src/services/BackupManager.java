@@ -0,0 +1,436 @@
+package services;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Sao lưu dữ liệu theo thế hệ, mỗi lần một thư mục riêng backups/<yyyyMMdd-HHmmss-SSS>
+ * File được chép nguyên từng byte bằng FileChannel.transferTo (không đổi mã ký tự hay ký tự xuống dòng).
+ * File giao dịch dạng text chỉ bị nối thêm ở cuối khi không có giao dịch nào bị xóa, nên bản sao lưu
+ * tăng dần chỉ chép phần mới kể từ thế hệ trước. Nếu phần đầu file đã đổi (CRC32 không khớp),
+ * hoặc chuỗi tăng dần đã quá dài, thì sao lưu đầy đủ. Có thể nén bằng Deflater.
+ */
+public class BackupManager {
+    private static final String MANIFEST = "manifest.properties";
+    private static final String COMPRESSED_SUFFIX = ".z";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int DEFAULT_MAX_CHAIN_LENGTH = 30;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    
+    private final File backupDir;
+    private boolean compress;
+    private int compressionLevel;
+    private int maxChainLength;      // Số bản tăng dần tối đa nối sau một bản đầy đủ
+    
+    /**
+     * Một thế hệ sao lưu, đọc từ manifest.properties của nó
+     */
+    public static class Generation {
+        private final String name;
+        private final Properties manifest;
+        
+        Generation(String name, Properties manifest) {
+            this.name = name;
+            this.manifest = manifest;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public boolean isIncremental() {
+            return "INCREMENTAL".equals(manifest.getProperty("type"));
+        }
+        
+        /**
+         * Thế hệ trước trong chuỗi (null nếu là bản đầy đủ)
+         */
+        public String getParent() {
+            return manifest.getProperty("parent");
+        }
+        
+        public boolean isCompressed() {
+            return Boolean.parseBoolean(manifest.getProperty("compressed"));
+        }
+        
+        /**
+         * Tên file giao dịch được sao lưu (null nếu không có)
+         */
+        public String getDataFile() {
+            return manifest.getProperty("data.file");
+        }
+        
+        /**
+         * Vị trí bắt đầu của phần file giao dịch lưu trong thế hệ này
+         */
+        public long getDataOffset() {
+            return Long.parseLong(manifest.getProperty("data.offset", "0"));
+        }
+        
+        /**
+         * Độ dài đầy đủ của file giao dịch tại thời điểm sao lưu
+         */
+        public long getDataLength() {
+            return Long.parseLong(manifest.getProperty("data.length", "0"));
+        }
+        
+        public long getDataCrc() {
+            return Long.parseLong(manifest.getProperty("data.crc", "0"));
+        }
+        
+        /**
+         * Số bản tăng dần từ bản đầy đủ gần nhất tới thế hệ này (0 với bản đầy đủ)
+         */
+        public int getChainLength() {
+            return Integer.parseInt(manifest.getProperty("chain", "0"));
+        }
+        
+        /**
+         * Các file khác được chép đầy đủ trong thế hệ này
+         */
+        public List<String> getFiles() {
+            String files = manifest.getProperty("files", "");
+            return files.isEmpty() ? new ArrayList<>() : Arrays.asList(files.split(","));
+        }
+        
+        /**
+         * Số byte đã ghi vào thư mục sao lưu
+         */
+        public long getBytesWritten() {
+            return Long.parseLong(manifest.getProperty("bytes", "0"));
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s (%s%s, %,d byte)", name, isIncremental() ? "tăng dần" : "đầy đủ",
+                isCompressed() ? ", nén" : "", getBytesWritten());
+        }
+    }
+    
+    public BackupManager(String backupDir) {
+        this.backupDir = new File(backupDir);
+        this.compress = false;
+        this.compressionLevel = Deflater.BEST_SPEED;
+        this.maxChainLength = DEFAULT_MAX_CHAIN_LENGTH;
+    }
+    
+    /**
+     * Tạo một thế hệ sao lưu mới
+     * @param dataFile file giao dịch (có thể null)
+     * @param appendOnly true nếu dataFile chỉ được nối thêm ở cuối, cho phép sao lưu tăng dần
+     * @param files các file khác (nhỏ) luôn được chép đầy đủ, bỏ qua file không tồn tại
+     */
+    public Generation backup(File dataFile, boolean appendOnly, File... files) throws IOException {
+        Generation previous = appendOnly ? getLatestGeneration() : null;
+        String name = newGenerationName();
+        File tempDir = new File(backupDir, name + TEMP_SUFFIX);
+        if (!tempDir.mkdirs()) {
+            throw new IOException("Không tạo được thư mục " + tempDir);
+        }
+        
+        Properties manifest = new Properties();
+        manifest.setProperty("created", LocalDateTime.now().toString());
+        manifest.setProperty("compressed", String.valueOf(compress));
+        manifest.setProperty("type", "FULL");
+        long bytesWritten = 0;
+        
+        try {
+            if (dataFile != null && dataFile.exists()) {
+                bytesWritten += backupDataFile(dataFile, previous, tempDir, manifest);
+            }
+            
+            StringJoiner copied = new StringJoiner(",");
+            for (File file : files) {
+                if (!file.exists()) {
+                    continue;
+                }
+                try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    bytesWritten += copyRange(source, 0, source.size(), storedFile(tempDir, file.getName()));
+                }
+                copied.add(file.getName());
+            }
+            manifest.setProperty("files", copied.toString());
+            manifest.setProperty("bytes", String.valueOf(bytesWritten));
+            
+            try (OutputStream out = new FileOutputStream(new File(tempDir, MANIFEST))) {
+                manifest.store(out, "Backup " + name);
+            }
+            
+            // Chỉ đổi tên khi đã ghi xong: thư mục .tmp còn sót lại không bao giờ được dùng làm thế hệ trước
+            Files.move(tempDir.toPath(), new File(backupDir, name).toPath());
+            return new Generation(name, manifest);
+        
+        } catch (IOException | RuntimeException e) {
+            deleteDirectory(tempDir);
+            throw e;
+        }
+    }
+    
+    /**
+     * Chép file giao dịch: chỉ phần thêm mới nếu phần đầu còn khớp với thế hệ trước, ngược lại cả file
+     * Phần đầu được kiểm tra bằng CRC32 trong cùng một lần đọc tính CRC cho cả file.
+     */
+    private long backupDataFile(File dataFile, Generation previous, File dir, Properties manifest) throws IOException {
+        try (FileChannel source = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+            long length = source.size();
+            long offset = 0;
+            CRC32 crc = new CRC32();
+            
+            if (previous != null && dataFile.getName().equals(previous.getDataFile())
+                    && previous.getChainLength() < maxChainLength && previous.getDataLength() <= length) {
+                long base = previous.getDataLength();
+                updateChecksum(crc, source, 0, base);
+                if (crc.getValue() == previous.getDataCrc()) {
+                    offset = base;
+                    manifest.setProperty("type", "INCREMENTAL");
+                    manifest.setProperty("parent", previous.getName());
+                    manifest.setProperty("chain", String.valueOf(previous.getChainLength() + 1));
+                }
+                updateChecksum(crc, source, base, length);
+            } else {
+                updateChecksum(crc, source, 0, length);
+            }
+            
+            manifest.setProperty("data.file", dataFile.getName());
+            manifest.setProperty("data.offset", String.valueOf(offset));
+            manifest.setProperty("data.length", String.valueOf(length));
+            manifest.setProperty("data.crc", String.valueOf(crc.getValue()));
+            return copyRange(source, offset, length - offset, storedFile(dir, dataFile.getName()));
+        }
+    }
+    
+    /**
+     * Khôi phục một thế hệ vào thư mục đích (ghép bản đầy đủ với các bản tăng dần sau nó)
+     * Thư mục đích có thể mở lại bằng new FileManager(targetDir).
+     */
+    public void restore(String name, File targetDir) throws IOException {
+        Generation generation = readGeneration(name);
+        if (!targetDir.exists() && !targetDir.mkdirs()) {
+            throw new IOException("Không tạo được thư mục " + targetDir);
+        }
+        
+        for (String fileName : generation.getFiles()) {
+            try (FileChannel out = FileChannel.open(new File(targetDir, fileName).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                appendStored(generation, fileName, out);
+            }
+        }
+        
+        if (generation.getDataFile() == null) {
+            return;
+        }
+        
+        // Chuỗi từ bản đầy đủ tới thế hệ cần khôi phục
+        Deque<Generation> chain = new ArrayDeque<>();
+        for (Generation g = generation; ; g = readGeneration(g.getParent())) {
+            chain.addFirst(g);
+            if (!g.isIncremental()) {
+                break;
+            }
+        }
+        
+        File target = new File(targetDir, generation.getDataFile());
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Generation g : chain) {
+                if (out.position() != g.getDataOffset()) {
+                    throw new IOException("Chuỗi backup bị đứt tại " + g.getName());
+                }
+                appendStored(g, g.getDataFile(), out);
+            }
+            
+            CRC32 crc = new CRC32();
+            updateChecksum(crc, out, 0, out.size());
+            if (out.size() != generation.getDataLength() || crc.getValue() != generation.getDataCrc()) {
+                throw new IOException("File khôi phục không khớp checksum: " + target);
+            }
+        }
+    }
+    
+    /**
+     * Tên các thế hệ đã sao lưu, cũ nhất trước
+     */
+    public List<String> listGenerations() {
+        List<String> names = new ArrayList<>();
+        File[] dirs = backupDir.listFiles(dir -> dir.isDirectory() && new File(dir, MANIFEST).exists());
+        if (dirs != null) {
+            for (File dir : dirs) {
+                names.add(dir.getName());
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+    
+    /**
+     * Thế hệ mới nhất, hoặc null nếu chưa sao lưu lần nào
+     */
+    public Generation getLatestGeneration() throws IOException {
+        List<String> names = listGenerations();
+        return names.isEmpty() ? null : readGeneration(names.get(names.size() - 1));
+    }
+    
+    public Generation readGeneration(String name) throws IOException {
+        File manifestFile = new File(new File(backupDir, name), MANIFEST);
+        Properties manifest = new Properties();
+        try (InputStream in = new FileInputStream(manifestFile)) {
+            manifest.load(in);
+        }
+        return new Generation(name, manifest);
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    
+    /**
+     * Chép đoạn [position, position + count) của source sang file đích
+     * Không nén: transferTo để hệ điều hành chép thẳng giữa hai file. Nén: đọc từng khối qua Deflater.
+     * @return số byte đã ghi
+     */
+    private long copyRange(FileChannel source, long position, long count, File target) throws IOException {
+        if (!compress) {
+            try (FileChannel out = FileChannel.open(target.toPath(),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long done = 0;
+                while (done < count) {
+                    done += source.transferTo(position + done, count - done, out);
+                }
+                return done;
+            }
+        }
+        
+        Deflater deflater = new Deflater(compressionLevel);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(
+                new FileOutputStream(target), deflater, BUFFER_SIZE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long done = 0;
+            while (done < count) {
+                buffer.clear().limit((int) Math.min(BUFFER_SIZE, count - done));
+                int n = source.read(buffer, position + done);
+                if (n < 0) {
+                    break;
+                }
+                out.write(buffer.array(), 0, n);
+                done += n;
+            }
+            out.finish();
+            return deflater.getBytesWritten();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    /**
+     * Nối nội dung một file đã sao lưu (giải nén nếu cần) vào cuối out
+     */
+    private void appendStored(Generation generation, String fileName, FileChannel out) throws IOException {
+        File dir = new File(backupDir, generation.getName());
+        if (!generation.isCompressed()) {
+            try (FileChannel in = FileChannel.open(new File(dir, fileName).toPath(), StandardOpenOption.READ)) {
+                long done = 0;
+                long size = in.size();
+                while (done < size) {
+                    done += in.transferTo(done, size - done, out);
+                }
+            }
+            return;
+        }
+        
+        try (InputStream in = new InflaterInputStream(
+                new FileInputStream(new File(dir, fileName + COMPRESSED_SUFFIX)), new Inflater(), BUFFER_SIZE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+                while (chunk.hasRemaining()) {
+                    out.write(chunk);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Cộng đoạn [from, to) của file vào CRC32
+     */
+    private static void updateChecksum(CRC32 crc, FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE * 4);
+        long position = from;
+        while (position < to) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException("File ngắn hơn dự kiến");
+            }
+            buffer.flip();
+            crc.update(buffer);
+            position += n;
+        }
+    }
+    
+    private File storedFile(File dir, String fileName) {
+        return new File(dir, compress ? fileName + COMPRESSED_SUFFIX : fileName);
+    }
+    
+    /**
+     * Tên thế hệ theo thời điểm tới mili giây, thêm hậu tố nếu trùng
+     */
+    private String newGenerationName() throws IOException {
+        if (!backupDir.exists() && !backupDir.mkdirs()) {
+            throw new IOException("Không tạo được thư mục " + backupDir);
+        }
+        String base = LocalDateTime.now().format(NAME_FORMAT);
+        String name = base;
+        for (int i = 1; new File(backupDir, name).exists() || new File(backupDir, name + TEMP_SUFFIX).exists(); i++) {
+            name = base + "-" + i;
+        }
+        return name;
+    }
+    
+    private static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+    
+    // ===== GETTERS / SETTERS =====
+    public boolean isCompress() {
+        return compress;
+    }
+    
+    /**
+     * Nén các file sao lưu bằng Deflater (không dùng được transferTo khi nén)
+     */
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+    
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+    
+    public int getMaxChainLength() {
+        return maxChainLength;
+    }
+    
+    /**
+     * Sau maxChainLength bản tăng dần thì tạo lại bản đầy đủ, để khôi phục không phải ghép chuỗi quá dài
+     */
+    public void setMaxChainLength(int maxChainLength) {
+        this.maxChainLength = maxChainLength;
+    }
+}
\ No newline at end of file
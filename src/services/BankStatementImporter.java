@@ -0,0 +1,340 @@
+package services;
+
+import models.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Nhập hàng loạt giao dịch từ file CSV sao kê ngân hàng
+ * Mỗi dòng CSV thành một Income (số tiền dương / cột có) hoặc Expense (số tiền âm / cột nợ).
+ * Toàn bộ file được thêm vào tài khoản trong một lô (một lần giữ khóa, cộng số dư một lần)
+ * và chỉ lưu file một lần ở cuối, thay vì saveData cho từng giao dịch.
+ *
+ * Cột mặc định: Ngày (dd/MM/yyyy), Mô tả, Số tiền (có dấu), có dòng tiêu đề.
+ * Dùng các setter để khai báo cột khác, vd cột nợ/có riêng hoặc cột danh mục.
+ */
+public class BankStatementImporter {
+    private static final int MAX_REPORTED_ERRORS = 20;
+    
+    private int dateColumn = 0;
+    private int descriptionColumn = 1;
+    private int amountColumn = 2;        // Số tiền có dấu: dương = thu, âm = chi
+    private int debitColumn = -1;        // Cột nợ (chi), dùng thay amountColumn nếu >= 0
+    private int creditColumn = -1;       // Cột có (thu)
+    private int categoryColumn = -1;     // Tên danh mục (nếu sao kê có)
+    private char delimiter = ',';
+    private char decimalSeparator = '.';
+    private boolean hasHeader = true;
+    private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    
+    /**
+     * Kết quả một lần nhập
+     */
+    public static class ImportResult {
+        private int imported;
+        private int skipped;
+        private long elapsedMillis;
+        private List<String> errors = new ArrayList<>();   // Tối đa MAX_REPORTED_ERRORS dòng lỗi đầu tiên
+        
+        public int getImported() {
+            return imported;
+        }
+        
+        public int getSkipped() {
+            return skipped;
+        }
+        
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+        
+        public List<String> getErrors() {
+            return errors;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Nhập %,d giao dịch, bỏ qua %,d dòng trong %d ms", imported, skipped, elapsedMillis);
+        }
+    }
+    
+    /**
+     * Đọc file sao kê, thêm toàn bộ giao dịch vào tài khoản rồi lưu một lần
+     */
+    public ImportResult importFile(File csvFile, Account account, FileManager fileManager) throws IOException {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        CategoryResolver categories = new CategoryResolver(account);
+        List<Transaction> batch = new ArrayList<>();
+        
+        try (BufferedReader reader = Files.newBufferedReader(csvFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            List<String> fields = new ArrayList<>();
+            String lastDateText = null;
+            LocalDate lastDate = null;
+            
+            if (hasHeader) {
+                reader.readLine();
+                lineNumber++;
+            }
+            
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                
+                try {
+                    splitFields(line, fields);
+                    
+                    // Sao kê thường sắp theo ngày nên các dòng liền nhau hay trùng ngày
+                    String dateText = field(fields, dateColumn);
+                    if (!dateText.equals(lastDateText)) {
+                        lastDate = LocalDate.parse(dateText, dateFormatter);
+                        lastDateText = dateText;
+                    }
+                    if (!Account.isSupportedDate(lastDate)) {
+                        throw new IllegalArgumentException("ngày ngoài khoảng cho phép: " + lastDate);
+                    }
+                    
+                    long amountMinor = signedAmount(fields);
+                    if (amountMinor == 0) {
+                        throw new IllegalArgumentException("số tiền bằng 0");
+                    }
+                    
+                    boolean income = amountMinor > 0;
+                    String categoryName = categoryColumn >= 0 ? field(fields, categoryColumn) : null;
+                    Category category = categories.resolve(categoryName, income ? "THU" : "CHI");
+                    String note = sanitizeNote(field(fields, descriptionColumn));
+                    double amount = Math.abs(amountMinor) / 100.0;
+                    String id = account.generateTransactionId();
+                    
+                    batch.add(income
+                        ? new Income(id, lastDate, amount, category, note)
+                        : new Expense(id, lastDate, amount, category, note));
+                
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    result.skipped++;
+                    if (result.errors.size() < MAX_REPORTED_ERRORS) {
+                        result.errors.add("Dòng " + lineNumber + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        
+        // Một lần giữ khóa và cộng số dư cho cả lô, rồi lưu một lần
+        account.addTransactions(batch);
+        result.imported = batch.size();
+        if (!batch.isEmpty()) {
+            fileManager.saveData(account);
+        }
+        
+        result.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return result;
+    }
+    
+    /**
+     * Số tiền (xu) có dấu: dương là thu, âm là chi
+     */
+    private long signedAmount(List<String> fields) {
+        if (debitColumn < 0) {
+            return parseMinor(field(fields, amountColumn));
+        }
+        // Sao kê nợ/có thường để trống một trong hai cột
+        String creditText = field(fields, creditColumn);
+        String debitText = field(fields, debitColumn);
+        long credit = creditText.isEmpty() ? 0 : parseMinor(creditText);
+        long debit = debitText.isEmpty() ? 0 : parseMinor(debitText);
+        return Math.abs(credit) - Math.abs(debit);
+    }
+    
+    /**
+     * Mô tả của ngân hàng dùng làm ghi chú: '|' và xuống dòng làm hỏng định dạng dòng
+     * của transactions.txt và journal nên được thay bằng khoảng trắng
+     */
+    private static String sanitizeNote(String description) {
+        return description.replace('|', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+    
+    /**
+     * Đọc số tiền dạng "1,234,567.89", "-50000" hoặc "1.234.567,89 VND" (với setDecimalSeparator(','))... sang xu
+     * Bỏ qua mọi ký tự không phải chữ số, dấu trừ hoặc dấu thập phân (vd dấu phân cách hàng nghìn, đơn vị tiền)
+     * @throws IllegalArgumentException nếu không có chữ số nào, có nhiều hơn một dấu thập phân,
+     *         quá 2 chữ số sau dấu thập phân hoặc số tiền vượt quá giới hạn của long (tính theo xu)
+     */
+    private long parseMinor(String text) {
+        long whole = 0;
+        int fraction = 0;
+        int fractionDigits = -1;   // -1: chưa gặp dấu thập phân
+        boolean negative = false;
+        boolean hasDigit = false;
+        
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                hasDigit = true;
+                if (fractionDigits < 0) {
+                    try {
+                        whole = Math.addExact(Math.multiplyExact(whole, 10), ch - '0');
+                    } catch (ArithmeticException e) {
+                        throw new IllegalArgumentException("số tiền quá lớn: " + text);
+                    }
+                } else if (fractionDigits < 2) {
+                    fraction = fraction * 10 + (ch - '0');
+                    fractionDigits++;
+                } else {
+                    throw new IllegalArgumentException("quá 2 chữ số thập phân: " + text);
+                }
+            } else if (ch == '-' || ch == '(') {
+                negative = true;
+            } else if (ch == decimalSeparator) {
+                if (fractionDigits >= 0) {
+                    throw new IllegalArgumentException("có nhiều dấu thập phân '" + decimalSeparator + "': " + text);
+                }
+                fractionDigits = 0;
+            }
+        }
+        
+        if (!hasDigit) {
+            throw new IllegalArgumentException("số tiền không có chữ số: " + text);
+        }
+        if (fractionDigits == 1) {
+            fraction *= 10;
+        }
+        long minor;
+        try {
+            minor = Math.addExact(Math.multiplyExact(whole, 100), fraction);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("số tiền quá lớn: " + text);
+        }
+        return negative ? -minor : minor;
+    }
+    
+    /**
+     * Tách một dòng CSV (hỗ trợ trường trong dấu ngoặc kép và "" bên trong)
+     */
+    private void splitFields(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    current.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == delimiter) {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(ch);
+            }
+        }
+        fields.add(current.toString().trim());
+    }
+    
+    private static String field(List<String> fields, int column) {
+        if (column >= fields.size()) {
+            throw new IllegalArgumentException("thiếu cột " + (column + 1));
+        }
+        return fields.get(column);
+    }
+    
+    /**
+     * Tra danh mục theo (loại, tên) qua một bảng dựng sẵn một lần cho cả file
+     * Tên không có trong tài khoản được gán vào danh mục "Khác" cùng loại
+     */
+    private static class CategoryResolver {
+        private final Account account;
+        private final Map<String, Category> byKey;
+        private final Map<String, Category> fallbackByType;
+        
+        CategoryResolver(Account account) {
+            this.account = account;
+            this.byKey = new HashMap<>();
+            this.fallbackByType = new HashMap<>();
+            for (Category c : account.getCategories()) {
+                byKey.putIfAbsent(key(c.getName(), c.getType()), c);
+            }
+        }
+        
+        Category resolve(String name, String type) {
+            if (name != null && !name.isEmpty()) {
+                Category category = byKey.get(key(name, type));
+                if (category != null) {
+                    return category;
+                }
+            }
+            return fallbackByType.computeIfAbsent(type, this::fallback);
+        }
+        
+        private Category fallback(String type) {
+            Category other = byKey.get(key("Khác", type));
+            if (other == null) {
+                other = new Category("Khác", type);
+                account.addCategory(other);
+                byKey.put(key("Khác", type), other);
+            }
+            return other;
+        }
+        
+        private static String key(String name, String type) {
+            return type + "|" + name.toLowerCase();
+        }
+    }
+    
+    // ===== SETTERS =====
+    public void setDateColumn(int dateColumn) {
+        this.dateColumn = dateColumn;
+    }
+    
+    public void setDescriptionColumn(int descriptionColumn) {
+        this.descriptionColumn = descriptionColumn;
+    }
+    
+    public void setAmountColumn(int amountColumn) {
+        this.amountColumn = amountColumn;
+    }
+    
+    /**
+     * Dùng 2 cột nợ (chi) và có (thu) riêng thay cho một cột số tiền có dấu
+     */
+    public void setDebitCreditColumns(int debitColumn, int creditColumn) {
+        this.debitColumn = debitColumn;
+        this.creditColumn = creditColumn;
+    }
+    
+    public void setCategoryColumn(int categoryColumn) {
+        this.categoryColumn = categoryColumn;
+    }
+    
+    public void setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+    
+    public void setDecimalSeparator(char decimalSeparator) {
+        this.decimalSeparator = decimalSeparator;
+    }
+    
+    public void setHasHeader(boolean hasHeader) {
+        this.hasHeader = hasHeader;
+    }
+    
+    public void setDatePattern(String pattern) {
+        this.dateFormatter = DateTimeFormatter.ofPattern(pattern);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,365 @@
+package services;
+
+import models.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Định dạng lưu trữ nhị phân theo cột cho danh sách giao dịch
+ * File được map vào bộ nhớ (MappedByteBuffer) nên mở file không đọc hay giải mã dòng nào;
+ * các cột số được chép nguyên khối, ID và ghi chú chỉ được giải mã khi cần.
+ * Lưu ý Windows: vùng map giữ khóa file tới khi bị GC thu hồi, nên chừng nào bảng đọc từ file còn dùng
+ * thì không thay được chính file đó (lưu lại ở chế độ columnar sẽ báo lỗi; lưu dạng text không bị ảnh hưởng).
+ *
+ * Cấu trúc file (big-endian):
+ *   Header:   MAGIC | VERSION | rowCount | categoryCount | categoryTableSize
+ *   Danh mục: [type (byte) | độ dài tên (short) | tên UTF-8] x categoryCount
+ *   Cột:      amount (long, đơn vị xu) x n
+ *             epochDay (int) x n
+ *             stringOffset (int) x (2n + 1)   -- ID ở vị trí 2i, ghi chú ở 2i + 1
+ *             categoryOrdinal (short) x n
+ *             type (byte) x n                 -- 0 = THU, 1 = CHI
+ *   Heap:     các chuỗi ID và ghi chú UTF-8 nối liền nhau
+ */
+public class ColumnarStore {
+    private static final int MAGIC = 0x50464D43;   // "PFMC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    
+    private static final byte TYPE_INCOME = 0;
+    private static final byte TYPE_EXPENSE = 1;
+    
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final String[] categoryNames;
+    private final String[] categoryTypes;
+    
+    // Vị trí bắt đầu của từng cột trong file
+    private final int amountPos;
+    private final int dayPos;
+    private final int offsetPos;
+    private final int categoryPos;
+    private final int typePos;
+    private final int heapPos;
+    
+    private ColumnarStore(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("File không đúng định dạng columnar");
+        }
+        
+        this.rowCount = buffer.getInt(8);
+        int categoryCount = buffer.getInt(12);
+        int categoryTableSize = buffer.getInt(16);
+        
+        // Bảng danh mục nhỏ nên đọc luôn khi mở file
+        this.categoryNames = new String[categoryCount];
+        this.categoryTypes = new String[categoryCount];
+        int pos = HEADER_SIZE;
+        for (int i = 0; i < categoryCount; i++) {
+            categoryTypes[i] = buffer.get(pos) == TYPE_INCOME ? "THU" : "CHI";
+            int length = buffer.getShort(pos + 1);
+            categoryNames[i] = decode(pos + 3, length);
+            pos += 3 + length;
+        }
+        
+        // Các cột có độ dài cố định: 8 + 4 + 2 * 4 + 2 + 1 byte mỗi dòng, cộng offset đầu tiên của heap
+        long columnsEnd = (long) HEADER_SIZE + categoryTableSize + rowCount * 23L + 4;
+        if (rowCount < 0 || categoryTableSize < 0 || columnsEnd > buffer.capacity()) {
+            throw new IOException("File columnar bị cắt cụt hoặc hỏng");
+        }
+        
+        this.amountPos = HEADER_SIZE + categoryTableSize;
+        this.dayPos = amountPos + rowCount * 8;
+        this.offsetPos = dayPos + rowCount * 4;
+        this.categoryPos = offsetPos + (2 * rowCount + 1) * 4;
+        this.typePos = categoryPos + rowCount * 2;
+        this.heapPos = typePos + rowCount;
+        
+        // ID và ghi chú chỉ được giải mã khi cần nên kiểm tra trước là vùng chuỗi có đủ
+        if ((long) heapPos + buffer.getInt(offsetPos + 2 * rowCount * 4) != buffer.capacity()) {
+            throw new IOException("File columnar bị cắt cụt hoặc hỏng");
+        }
+    }
+    
+    /**
+     * Mở file columnar: chỉ map file và đọc header, không giải mã dòng nào
+     * Kênh được đóng ngay, vùng map vẫn dùng được tới khi không còn ai tham chiếu.
+     */
+    public static ColumnarStore open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File columnar quá lớn: " + file);
+            }
+            return new ColumnarStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+    
+    /**
+     * Ghi bảng giao dịch ra file columnar (người gọi phải giữ khóa đọc của tài khoản)
+     */
+    public static void write(TransactionTable table, File file) throws IOException {
+        // Các cột trong file lấy thẳng từ bảng giao dịch, không tạo Transaction
+        int rows = table.size();
+        
+        List<Category> categories = new ArrayList<>();
+        for (int ordinal = 0; ordinal < table.getCategoryCount(); ordinal++) {
+            categories.add(table.getCategoryByOrdinal(ordinal));
+        }
+        
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            writeHeader(out, rows, categories);
+            
+            for (int i = 0; i < rows; i++) {
+                out.writeLong(table.getAmountMinor(i));
+            }
+            for (int i = 0; i < rows; i++) {
+                out.writeInt(table.getEpochDay(i));
+            }
+            
+            int offset = 0;
+            out.writeInt(offset);
+            for (int i = 0; i < rows; i++) {
+                offset += utf8Length(table.getId(i));
+                out.writeInt(offset);
+                offset += utf8Length(table.getNote(i));
+                out.writeInt(offset);
+            }
+            
+            for (int i = 0; i < rows; i++) {
+                out.writeShort(table.getCategoryOrdinal(i));
+            }
+            for (int i = 0; i < rows; i++) {
+                out.writeByte(table.isIncome(i) ? TYPE_INCOME : TYPE_EXPENSE);
+            }
+            
+            for (int i = 0; i < rows; i++) {
+                out.write(table.getId(i).getBytes(StandardCharsets.UTF_8));
+                out.write(table.getNote(i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+    
+    /**
+     * Ghi header và bảng danh mục
+     */
+    private static void writeHeader(DataOutputStream out, int rows, List<Category> categories) throws IOException {
+        ByteArrayOutputStream categoryTable = new ByteArrayOutputStream();
+        DataOutputStream tableOut = new DataOutputStream(categoryTable);
+        for (Category c : categories) {
+            byte[] name = c.getName().getBytes(StandardCharsets.UTF_8);
+            tableOut.writeByte(c.getType().equals("THU") ? TYPE_INCOME : TYPE_EXPENSE);
+            tableOut.writeShort(name.length);
+            tableOut.write(name);
+        }
+        
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(rows);
+        out.writeInt(categories.size());
+        out.writeInt(categoryTable.size());
+        categoryTable.writeTo(out);
+    }
+    
+    /**
+     * Ghi file columnar theo kiểu luồng, từng dòng một, khi không biết trước số dòng
+     * (vd: sinh hàng chục triệu giao dịch mà không giữ chúng trong bộ nhớ).
+     * Mỗi cột được ghi tạm ra một file riêng cạnh file đích, khi đóng thì nối lại theo đúng cấu trúc.
+     */
+    public static class StreamWriter implements Closeable {
+        private static final int COLUMN_COUNT = 6;
+        
+        private final File file;
+        private final List<Category> categories;
+        private final Map<Category, Integer> ordinalByCategory;
+        private final File[] spillFiles;
+        private final DataOutputStream[] columns;
+        private int rows;
+        private long heapSize;
+        
+        /**
+         * @param categories bảng danh mục của file, mọi giao dịch phải thuộc một trong các danh mục này
+         */
+        public StreamWriter(File file, List<Category> categories) throws IOException {
+            this.file = file;
+            this.categories = new ArrayList<>(categories);
+            this.ordinalByCategory = new IdentityHashMap<>();
+            for (int ordinal = 0; ordinal < categories.size(); ordinal++) {
+                ordinalByCategory.put(categories.get(ordinal), ordinal);
+            }
+            
+            File dir = file.getAbsoluteFile().getParentFile();
+            this.spillFiles = new File[COLUMN_COUNT];
+            this.columns = new DataOutputStream[COLUMN_COUNT];
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                spillFiles[i] = File.createTempFile("col", ".tmp", dir);
+                spillFiles[i].deleteOnExit();
+                columns[i] = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(spillFiles[i]), 1 << 16));
+            }
+            columns[2].writeInt(0);   // offset đầu tiên của heap
+        }
+        
+        /**
+         * Ghi thêm một dòng
+         */
+        public void append(String id, int epochDay, long amountMinor, Category category, String note) throws IOException {
+            Integer ordinal = ordinalByCategory.get(category);
+            if (ordinal == null) {
+                throw new IllegalArgumentException("Danh mục không có trong bảng: " + category.getName());
+            }
+            
+            byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+            byte[] noteBytes = note.getBytes(StandardCharsets.UTF_8);
+            if (heapSize + idBytes.length + noteBytes.length > Integer.MAX_VALUE) {
+                throw new IOException("Vùng chuỗi vượt quá 2GB, không ghi được vào file columnar");
+            }
+            
+            columns[0].writeLong(amountMinor);
+            columns[1].writeInt(epochDay);
+            heapSize += idBytes.length;
+            columns[2].writeInt((int) heapSize);
+            heapSize += noteBytes.length;
+            columns[2].writeInt((int) heapSize);
+            columns[3].writeShort(ordinal);
+            columns[4].writeByte(category.getType().equals("THU") ? TYPE_INCOME : TYPE_EXPENSE);
+            columns[5].write(idBytes);
+            columns[5].write(noteBytes);
+            rows++;
+        }
+        
+        public int getRowCount() {
+            return rows;
+        }
+        
+        /**
+         * Ghi header rồi nối các cột tạm vào file đích
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                for (DataOutputStream column : columns) {
+                    column.close();
+                }
+                
+                try (FileOutputStream target = new FileOutputStream(file)) {
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+                    writeHeader(out, rows, categories);
+                    out.flush();
+                    
+                    FileChannel targetChannel = target.getChannel();
+                    for (File spill : spillFiles) {
+                        try (FileChannel source = FileChannel.open(spill.toPath(), StandardOpenOption.READ)) {
+                            long position = 0;
+                            long size = source.size();
+                            while (position < size) {
+                                position += source.transferTo(position, size - position, targetChannel);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                for (File spill : spillFiles) {
+                    spill.delete();
+                }
+            }
+        }
+    }
+    
+    // ===== ĐỌC THEO CỘT =====
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    public long getAmountMinor(int row) {
+        return buffer.getLong(amountPos + row * 8);
+    }
+    
+    public int getEpochDay(int row) {
+        return buffer.getInt(dayPos + row * 4);
+    }
+    
+    public int getCategoryOrdinal(int row) {
+        return buffer.getShort(categoryPos + row * 2);
+    }
+    
+    public boolean isIncome(int row) {
+        return buffer.get(typePos + row) == TYPE_INCOME;
+    }
+    
+    public String getCategoryName(int ordinal) {
+        return categoryNames[ordinal];
+    }
+    
+    public String getId(int row) {
+        return string(2 * row);
+    }
+    
+    public String getNote(int row) {
+        return string(2 * row + 1);
+    }
+    
+    /**
+     * Ánh xạ bảng danh mục trong file sang danh mục của tài khoản
+     * (tạo mới nếu tài khoản chưa có). Chỉ cần làm một lần khi mở file.
+     */
+    public Category[] resolveCategories(Account account) {
+        Category[] resolved = new Category[categoryNames.length];
+        for (int ordinal = 0; ordinal < resolved.length; ordinal++) {
+            for (Category c : account.getCategoriesByType(categoryTypes[ordinal])) {
+                if (c.getName().equalsIgnoreCase(categoryNames[ordinal])) {
+                    resolved[ordinal] = c;
+                    break;
+                }
+            }
+            if (resolved[ordinal] == null) {
+                resolved[ordinal] = new Category(categoryNames[ordinal], categoryTypes[ordinal]);
+                account.addCategory(resolved[ordinal]);
+            }
+        }
+        return resolved;
+    }
+    
+    /**
+     * Dựng TransactionTable từ file: các cột số được chép nguyên khối, ID và ghi chú để nguyên trong
+     * vùng map và chỉ được giải mã khi bảng đọc tới dòng đó; không tạo Transaction nào
+     * @param categories kết quả của resolveCategories
+     */
+    public TransactionTable toTable(Category[] categories) {
+        long[] amounts = new long[rowCount];
+        int[] days = new int[rowCount];
+        short[] categoryOrdinals = new short[rowCount];
+        byte[] types = new byte[rowCount];
+        buffer.duplicate().position(amountPos).asLongBuffer().get(amounts);
+        buffer.duplicate().position(dayPos).asIntBuffer().get(days);
+        buffer.duplicate().position(categoryPos).asShortBuffer().get(categoryOrdinals);
+        buffer.get(typePos, types);
+        
+        // Loại trong file cùng quy ước với TransactionTable (0 = THU, 1 = CHI)
+        return TransactionTable.fromColumns(amounts, days, types, categoryOrdinals, this::getId, this::getNote,
+            Arrays.asList(categories));
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    private String string(int index) {
+        int start = buffer.getInt(offsetPos + index * 4);
+        int end = buffer.getInt(offsetPos + (index + 1) * 4);
+        return decode(heapPos + start, end - start);
+    }
+    
+    private String decode(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static int utf8Length(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
\ No newline at end of file
@@ -1,24 +1,80 @@
 package services;
 
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import models.*;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service xử lý lưu trữ và đọc dữ liệu từ file
+ * Mọi file văn bản (account.txt, transactions.txt, journal, CSV) đều đọc / ghi bằng UTF-8,
+ * không phụ thuộc charset mặc định của máy.
  */
 public class FileManager {
     private static final String DATA_DIR = "data";
-    private static final String TRANSACTIONS_FILE = DATA_DIR + "/transactions.txt";
-    private static final String ACCOUNT_FILE = DATA_DIR + "/account.txt";
     private static final String EXPORT_DIR = "exports";
     
+    // Số bản ghi journal tối đa trước khi gộp lại vào file dữ liệu chính
+    private static final int JOURNAL_COMPACT_THRESHOLD = 10000;
+    
+    // Số đo I/O (xem Metrics), dùng chung cho mọi FileManager
+    private static final LatencyHistogram LOAD_TIME = Metrics.timer("file.load");
+    private static final LatencyHistogram SAVE_TIME = Metrics.timer("file.save");
+    private static final LatencyHistogram EXPORT_TIME = Metrics.timer("file.exportCSV");
+    private static final LatencyHistogram BACKUP_TIME = Metrics.timer("file.backup");
+    private static final LongAdder BYTES_READ = Metrics.counter("file.bytesRead");
+    private static final LongAdder BYTES_WRITTEN = Metrics.counter("file.bytesWritten");
+    
+    private boolean journalMode = true;   // Ghi nối tiếp vào journal thay vì ghi lại toàn bộ
+    private int journalRecords = 0;       // Số bản ghi journal kể từ lần gộp gần nhất
+    private boolean columnarMode = false; // Lưu giao dịch ở định dạng nhị phân theo cột
+    private boolean snapshotMode = true;  // Ghi kèm ảnh chụp nhị phân để khởi động nhanh
+    private boolean syncOnSave = false;   // fsync các file sau khi lưu (bền vững hơn, chậm hơn)
+    private boolean quiet = false;        // Không in thông báo thành công / thời gian đọc (lỗi vẫn in)
+    private volatile WriteBehindSaver writeBehind; // Khác null khi bật chế độ lưu nền
+    private final Object journalLock = new Object();  // Ghi journal không phải chờ lần lưu đầy đủ
+    
+    // Các file của tài khoản, nằm trong thư mục dữ liệu riêng
+    private final String dataDir;
+    private final String transactionsFile;
+    private final String accountFile;
+    private final String columnarFile;
+    private final String journalFile;
+    private final String rotatedJournalFile;   // Journal cũ trong lúc đang lưu đầy đủ
+    private final String snapshotFile;
+    private final BackupManager backupManager;
+    
     /**
      * Constructor - tạo thư mục data nếu chưa có
      */
     public FileManager() {
-        createDirectoryIfNotExists(DATA_DIR);
+        this(DATA_DIR);
+    }
+    
+    /**
+     * Constructor với thư mục dữ liệu riêng (mỗi tài khoản một thư mục)
+     */
+    public FileManager(String dataDir) {
+        this.dataDir = dataDir;
+        this.transactionsFile = dataDir + "/transactions.txt";
+        this.accountFile = dataDir + "/account.txt";
+        this.columnarFile = dataDir + "/transactions.col";
+        this.journalFile = dataDir + "/journal.log";
+        this.rotatedJournalFile = dataDir + "/journal.old";
+        this.snapshotFile = dataDir + "/snapshot.bin";
+        this.backupManager = new BackupManager(dataDir + "/backups");
+        createDirectoryIfNotExists(dataDir);
     }
     
     /**
@@ -27,7 +83,7 @@ public class FileManager {
     private void createDirectoryIfNotExists(String dirPath) {
         File dir = new File(dirPath);
         if (!dir.exists()) {
-            dir.mkdir();
+            dir.mkdirs();
         }
     }
     
@@ -35,114 +91,584 @@ public class FileManager {
      * Lưu toàn bộ dữ liệu tài khoản vào file
      */
     public void saveData(Account account) {
+        if (writeSnapshot(account) && !quiet) {
+            System.out.println("✓ Đã lưu dữ liệu thành công!");
+        }
+    }
+    
+    /**
+     * Ghi toàn bộ dữ liệu rồi xóa journal, không in thông báo thành công (dùng cho lưu nền)
+     * Journal được đổi tên trước khi đọc tài khoản: thay đổi ghi trong lúc đang lưu nằm ở journal mới,
+     * còn journal cũ chỉ bị xóa khi bản lưu đã ghi xong (nên record() không phải chờ lưu xong).
+     * @return true nếu lưu thành công
+     */
+    synchronized boolean writeSnapshot(Account account) {
+        long start = System.nanoTime();
         try {
-            // Lưu thông tin tài khoản
-            saveAccountInfo(account);
+            rotateJournal();
             
-            // Lưu danh sách giao dịch
-            saveTransactions(account);
+            // Ghi ra file tạm rồi đổi tên, để file đang có không bị hỏng nếu dừng giữa chừng
+            String dataFile = columnarMode ? columnarFile : transactionsFile;
+            String dataTemp = dataFile + ".tmp";
+            String accountTemp = accountFile + ".tmp";
+            String snapshotTemp = snapshotFile + ".tmp";
             
-            System.out.println("✓ Đã lưu dữ liệu thành công!");
+            // Giữ khóa đọc để số dư và danh sách giao dịch khớp nhau
+            long stamp = account.beginRead();
+            try {
+                // Lưu danh sách giao dịch
+                saveTransactions(account, dataTemp);
+                
+                // Lưu thông tin tài khoản
+                saveAccountInfo(account, accountTemp);
+                
+                // Ảnh chụp nhị phân của cùng trạng thái
+                if (snapshotMode) {
+                    AccountSnapshot.write(account, new File(snapshotTemp));
+                }
+            } finally {
+                account.endRead(stamp);
+            }
+            
+            if (syncOnSave) {
+                forceToDisk(dataTemp);
+                forceToDisk(accountTemp);
+            }
+            replaceFile(dataTemp, dataFile);
+            replaceFile(accountTemp, accountFile);
+            
+            // Ảnh chụp ghi nhận dấu vân tay các file vừa ghi, để biết khi nào nó bị cũ
+            if (snapshotMode) {
+                AccountSnapshot.stamp(new File(snapshotTemp), new File(accountFile), new File(dataFile));
+                if (syncOnSave) {
+                    forceToDisk(snapshotTemp);
+                }
+                replaceFile(snapshotTemp, snapshotFile);
+            }
+            
+            // Dữ liệu chính đã có mọi thay đổi trong journal cũ
+            new File(rotatedJournalFile).delete();
+            BYTES_WRITTEN.add(fileSizes(dataFile, accountFile, snapshotMode ? snapshotFile : null));
+            return true;
             
         } catch (IOException e) {
             System.err.println("✗ Lỗi khi lưu dữ liệu: " + e.getMessage());
+            return false;
+        } finally {
+            SAVE_TIME.recordSince(start);
+        }
+    }
+    
+    /**
+     * Bật chế độ lưu nền (write-behind): thay đổi chỉ đánh dấu tài khoản là "bẩn",
+     * luồng nền gộp các thay đổi và lưu một lần sau mỗi intervalMillis hoặc khi đủ maxChanges thay đổi
+     */
+    public void enableWriteBehind(Account account, long intervalMillis, int maxChanges,
+                                  WriteBehindSaver.Durability durability) {
+        // Dừng chế độ cũ (nếu có) ngoài khóa để luồng nền của nó lưu xong
+        close();
+        synchronized (this) {
+            syncOnSave = durability == WriteBehindSaver.Durability.FSYNC;
+            writeBehind = new WriteBehindSaver(this, account, intervalMillis, maxChanges, durability);
         }
     }
     
     /**
-     * Lưu thông tin tài khoản (tên và số dư)
+     * Lưu ngay các thay đổi đang chờ của chế độ lưu nền (không làm gì nếu chưa bật)
      */
-    private void saveAccountInfo(Account account) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ACCOUNT_FILE))) {
+    public void flush() {
+        WriteBehindSaver saver = writeBehind;
+        if (saver != null) {
+            saver.flush();
+        }
+    }
+    
+    /**
+     * Lưu các thay đổi đang chờ và dừng luồng lưu nền
+     */
+    public void close() {
+        WriteBehindSaver saver;
+        synchronized (this) {
+            saver = writeBehind;
+            writeBehind = null;
+        }
+        if (saver != null) {
+            saver.close();
+        }
+    }
+    
+    /**
+     * Lưu thông tin tài khoản (tên, số dư và ngân sách các danh mục)
+     * Từ dòng thứ 3: CATEGORY|NAME|TYPE|BUDGET
+     */
+    private void saveAccountInfo(Account account, String path) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(path, StandardCharsets.UTF_8))) {
             writer.println(account.getName());
             writer.println(account.getBalance());
+            for (Category c : account.getCategories()) {
+                writer.println(String.format("CATEGORY|%s|%s|%.2f", c.getName(), c.getType(), c.getBudget()));
+            }
         }
     }
     
+    /**
+     * Ghi nhận giao dịch vừa thêm
+     * Chế độ journal: chỉ nối thêm 1 dòng, chi phí O(1) bất kể lịch sử dài bao nhiêu
+     */
+    public void recordAdd(Account account, Transaction transaction) {
+        record(account, "ADD|" + transaction.toFileString());
+    }
+    
+    /**
+     * Ghi nhận giao dịch vừa xóa
+     */
+    public void recordRemove(Account account, String transactionId) {
+        record(account, "DEL|" + transactionId);
+    }
+    
+    /**
+     * Ghi nhận thay đổi ngân sách của danh mục
+     */
+    public void recordBudget(Account account, Category category) {
+        record(account, String.format("BUDGET|%s|%s|%.2f",
+            category.getName(), category.getType(), category.getBudget()));
+    }
+    
+    /**
+     * Nối bản ghi vào journal, hoặc lưu toàn bộ nếu không dùng chế độ journal
+     * Chế độ lưu nền: chỉ ghi journal (nếu mức bền vững yêu cầu) rồi đánh dấu cần lưu
+     */
+    private void record(Account account, String entry) {
+        WriteBehindSaver saver = writeBehind;
+        if (saver != null) {
+            if (saver.getDurability() != WriteBehindSaver.Durability.ASYNC) {
+                try {
+                    appendJournal(entry, saver.getDurability() == WriteBehindSaver.Durability.FSYNC);
+                } catch (IOException e) {
+                    System.err.println("✗ Lỗi khi ghi journal: " + e.getMessage());
+                }
+            }
+            saver.markDirty();
+            return;
+        }
+        
+        synchronized (this) {
+            recordSynchronously(account, entry);
+        }
+    }
+    
+    private void recordSynchronously(Account account, String entry) {
+        if (!journalMode) {
+            saveData(account);
+            return;
+        }
+        
+        try {
+            appendJournal(entry, false);
+        } catch (IOException e) {
+            System.err.println("✗ Lỗi khi ghi journal: " + e.getMessage());
+            saveData(account);
+            return;
+        }
+        
+        // Gộp journal định kỳ để thời gian khởi động không tăng mãi
+        if (++journalRecords >= JOURNAL_COMPACT_THRESHOLD) {
+            saveData(account);
+        }
+    }
+    
+    /**
+     * Nối một dòng vào journal
+     * @param sync true nếu cần fsync trước khi trả về
+     */
+    private void appendJournal(String entry, boolean sync) throws IOException {
+        synchronized (journalLock) {
+            try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+                byte[] bytes = (entry + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+                out.write(bytes);
+                BYTES_WRITTEN.add(bytes.length);
+                if (sync) {
+                    out.getFD().sync();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Chuyển journal hiện tại sang journal.old để bắt đầu journal mới
+     * (nối vào journal.old nếu lần lưu trước bị lỗi và nó vẫn còn)
+     */
+    private void rotateJournal() throws IOException {
+        synchronized (journalLock) {
+            Path current = Paths.get(journalFile);
+            Path rotated = Paths.get(rotatedJournalFile);
+            if (!Files.exists(current)) {
+                return;
+            }
+            if (Files.exists(rotated)) {
+                Files.write(rotated, Files.readAllBytes(current), StandardOpenOption.APPEND);
+                Files.delete(current);
+            } else {
+                Files.move(current, rotated);
+            }
+            journalRecords = 0;
+        }
+    }
+    
+    /**
+     * Thay file đích bằng file tạm (đổi tên nguyên tử nếu hệ điều hành hỗ trợ)
+     */
+    private static void replaceFile(String source, String target) throws IOException {
+        try {
+            Files.move(Paths.get(source), Paths.get(target),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(Paths.get(source), Paths.get(target), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * Đẩy nội dung file xuống đĩa (fsync)
+     */
+    private static void forceToDisk(String path) throws IOException {
+        if (Files.exists(Paths.get(path))) {
+            try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+    }
+    
+    /**
+     * Xóa journal hiện tại và journal cũ (journal.old), loadData sẽ không phát lại gì nữa
+     * @return false nếu có file còn đó mà không xóa được
+     */
+    private boolean clearJournal() {
+        synchronized (journalLock) {
+            boolean success = true;
+            for (String path : new String[] {journalFile, rotatedJournalFile}) {
+                File file = new File(path);
+                if (file.exists()) {
+                    success &= file.delete();
+                }
+            }
+            journalRecords = 0;
+            return success;
+        }
+    }
+    
+    /**
+     * Tắt các thông báo thành công in ra console (dùng khi FileManager chạy trong một service,
+     * vd AccountRegistry); thông báo lỗi vẫn được in
+     */
+    void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+    
+    public boolean isSnapshotMode() {
+        return snapshotMode;
+    }
+    
+    public void setSnapshotMode(boolean snapshotMode) {
+        this.snapshotMode = snapshotMode;
+    }
+    
+    public boolean isJournalMode() {
+        return journalMode;
+    }
+    
+    public void setJournalMode(boolean journalMode) {
+        this.journalMode = journalMode;
+    }
+    
     /**
      * Lưu danh sách giao dịch
      * Format: TYPE|ID|DATE|AMOUNT|CATEGORY|NOTE
      */
-    private void saveTransactions(Account account) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TRANSACTIONS_FILE))) {
-            for (Transaction t : account.getTransactions()) {
-                writer.println(t.toFileString());
+    private void saveTransactions(Account account, String path) throws IOException {
+        // Người gọi (writeSnapshot) đang giữ khóa đọc của tài khoản
+        if (columnarMode) {
+            ColumnarStore.write(account.getTable(), new File(path));
+            return;
+        }
+        
+        // Ghi thẳng từ các cột của bảng, không tạo Transaction và không dùng String.format cho mỗi dòng
+        try (Writer writer = new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8), 1 << 16)) {
+            TransactionTable table = account.getTable();
+            StringBuilder line = new StringBuilder(128);
+            for (int row = 0; row < table.size(); row++) {
+                line.setLength(0);
+                appendFileLine(line, table, row);
+                writer.append(line);
             }
         }
     }
     
+    /**
+     * Một dòng giống Transaction.toFileString(): TYPE|ID|yyyy-MM-dd|AMOUNT (2 số lẻ)|CATEGORY|NOTE
+     */
+    private static void appendFileLine(StringBuilder line, TransactionTable table, int row) {
+        LocalDate date = LocalDate.ofEpochDay(table.getEpochDay(row));
+        long amount = table.getAmountMinor(row);
+        
+        line.append(table.getType(row)).append('|').append(table.getId(row)).append('|');
+        line.append(date.getYear()).append('-');
+        appendTwoDigits(line, date.getMonthValue());
+        line.append('-');
+        appendTwoDigits(line, date.getDayOfMonth());
+        // Dấu ghi riêng: amount / 100 và amount % 100 của số âm cho "-1.-50", còn -50 xu thành "0.-50"
+        line.append('|');
+        if (amount < 0) {
+            line.append('-');
+        }
+        long magnitude = Math.abs(amount);
+        line.append(magnitude / 100).append('.');
+        appendTwoDigits(line, (int) (magnitude % 100));
+        line.append('|').append(table.getCategory(row).getName());
+        line.append('|').append(table.getNote(row));
+        line.append(System.lineSeparator());
+    }
+    
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+    
     /**
      * Đọc dữ liệu từ file và khôi phục tài khoản
      */
     public Account loadData() {
         Account account = null;
+        long start = System.nanoTime();
         
         try {
-            // Đọc thông tin tài khoản
-            account = loadAccountInfo();
+            // Ưu tiên ảnh chụp nhị phân nếu nó còn khớp với các file text
+            account = loadSnapshot();
             
-            // Đọc danh sách giao dịch
-            loadTransactions(account);
+            if (account != null) {
+                BYTES_READ.add(fileSizes(snapshotFile));
+            } else {
+                // Đọc thông tin tài khoản
+                account = loadAccountInfo();
+                
+                // Đọc danh sách giao dịch
+                loadTransactions(account);
+                BYTES_READ.add(fileSizes(accountFile, currentDataFile().getPath()));
+            }
+            
+            // Áp dụng các thay đổi ghi sau lần lưu gần nhất
+            replayJournal(account);
+            BYTES_READ.add(fileSizes(rotatedJournalFile, journalFile));
             
-            System.out.println("✓ Đã tải dữ liệu thành công!");
-            System.out.println("  " + account);
+            if (!quiet) {
+                System.out.println("✓ Đã tải dữ liệu thành công!");
+                System.out.println("  " + account);
+            }
             
         } catch (FileNotFoundException e) {
-            System.out.println("⚠️  Chưa có dữ liệu cũ, tạo tài khoản mới.");
+            if (!quiet) {
+                System.out.println("⚠️  Chưa có dữ liệu cũ, tạo tài khoản mới.");
+            }
             account = new Account("Tài khoản của tôi", 0);
+            replayJournalQuietly(account);
             
         } catch (IOException e) {
             System.err.println("✗ Lỗi khi đọc dữ liệu: " + e.getMessage());
             account = new Account("Tài khoản của tôi", 0);
+        } finally {
+            LOAD_TIME.recordSince(start);
         }
         
         return account;
     }
     
+    /**
+     * Áp dụng journal cho tài khoản mới (chưa từng lưu đầy đủ lần nào)
+     */
+    private void replayJournalQuietly(Account account) {
+        try {
+            replayJournal(account);
+        } catch (IOException e) {
+            System.err.println("✗ Lỗi khi đọc journal: " + e.getMessage());
+        }
+    }
+    
     /**
      * Đọc thông tin tài khoản từ file
      */
     private Account loadAccountInfo() throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(ACCOUNT_FILE))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(accountFile, StandardCharsets.UTF_8))) {
             String name = reader.readLine();
             double balance = Double.parseDouble(reader.readLine());
             
             Account account = new Account(name, 0);  // Khởi tạo với balance = 0
             account.setBalance(balance);  // Set balance từ file
             
+            // Ngân sách danh mục (file cũ không có phần này)
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|");
+                if (parts.length < 4 || !parts[0].equals("CATEGORY")) {
+                    continue;
+                }
+                Category category = findCategory(account, parts[1], parts[2]);
+                if (category == null) {
+                    category = new Category(parts[1], parts[2]);
+                    account.addCategory(category);
+                }
+                category.setBudget(Double.parseDouble(parts[3]));
+            }
+            
             return account;
         }
     }
     
+    /**
+     * Đọc ảnh chụp nhị phân
+     * @return null nếu chưa có, đã cũ (file text bị sửa sau đó) hoặc bị lỗi
+     */
+    private Account loadSnapshot() {
+        File snapshot = new File(snapshotFile);
+        if (!AccountSnapshot.isCurrent(snapshot, new File(accountFile), currentDataFile())) {
+            return null;
+        }
+        
+        try {
+            long start = System.nanoTime();
+            Account account = AccountSnapshot.read(snapshot);
+            if (!quiet) {
+                System.out.printf("  Đọc snapshot %d giao dịch trong %d ms%n",
+                    account.getTransactionCount(), (System.nanoTime() - start) / 1_000_000);
+            }
+            return account;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️  Snapshot lỗi, đọc lại từ file text: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * File giao dịch sẽ được đọc: file columnar nếu nó là bản lưu mới nhất, ngược lại file text
+     */
+    private File currentDataFile() {
+        File file = new File(transactionsFile);
+        File columnarFile = new File(this.columnarFile);
+        if (columnarFile.exists() && (!file.exists() || columnarFile.lastModified() >= file.lastModified())) {
+            return columnarFile;
+        }
+        return file;
+    }
+    
     /**
      * Đọc danh sách giao dịch từ file
      */
     private void loadTransactions(Account account) throws IOException {
-        File file = new File(TRANSACTIONS_FILE);
+        File file = currentDataFile();
+        
+        // Ưu tiên file columnar nếu nó là bản lưu mới nhất
+        if (file.getPath().equals(columnarFile)) {
+            loadColumnarTransactions(account, file);
+            return;
+        }
+        
         if (!file.exists()) {
             return;  // Không có file giao dịch
         }
         
+        // Parse song song theo từng đoạn, thêm vào tài khoản mà không cập nhật balance
+        // (vì balance đã được load từ account.txt)
+        ParallelTransactionLoader loader = new ParallelTransactionLoader();
+        loader.load(file, account);
+        
+        if (!quiet) {
+            System.out.printf("  Đọc %d giao dịch trong %d ms (%,.0f dòng/giây)%n",
+                loader.getRowCount(), loader.getElapsedMillis(), loader.getRowsPerSecond());
+        }
+    }
+    
+    /**
+     * Đọc danh sách giao dịch từ file columnar
+     * Không cần tách chuỗi hay parse ngày/số tiền: các cột trong file thành luôn các cột của
+     * TransactionTable, Account dựng chỉ mục từ đó mà không tạo Transaction cho từng dòng
+     */
+    private void loadColumnarTransactions(Account account, File file) throws IOException {
+        ColumnarStore store = ColumnarStore.open(file);
+        Category[] categories = store.resolveCategories(account);
+        try {
+            account.restoreTable(store.toTable(categories));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("File columnar lỗi: " + e.getMessage(), e);
+        }
+    }
+    
+    public boolean isColumnarMode() {
+        return columnarMode;
+    }
+    
+    public void setColumnarMode(boolean columnarMode) {
+        this.columnarMode = columnarMode;
+    }
+    
+    /**
+     * Đọc journal và áp dụng lại từng thay đổi theo đúng thứ tự
+     * Format: ADD|TYPE|ID|DATE|AMOUNT|CATEGORY|NOTE, DEL|ID, BUDGET|CATEGORY|TYPE|AMOUNT
+     */
+    private void replayJournal(Account account) throws IOException {
+        journalRecords = 0;
+        
+        // journal.old còn lại nếu lần lưu nền trước bị dừng giữa chừng, nó cũ hơn journal.log
+        replayJournalFile(account, new File(rotatedJournalFile));
+        replayJournalFile(account, new File(journalFile));
+    }
+    
+    private void replayJournalFile(Account account, File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
             String line;
             
             while ((line = reader.readLine()) != null) {
+                journalRecords++;
                 try {
-                    Transaction transaction = parseTransactionFromLine(line, formatter, account);
-                    if (transaction != null) {
-                        // Thêm trực tiếp vào danh sách mà không cập nhật balance
-                        // (vì balance đã được load từ account.txt)
-                        account.getTransactions().add(transaction);
+                    if (line.startsWith("ADD|")) {
+                        Transaction transaction = parseTransactionFromLine(line.substring(4), formatter, account);
+                        // Bỏ qua nếu giao dịch đã có trong file chính (lưu bị ngắt giữa chừng)
+                        if (transaction != null && account.findTransactionById(transaction.getId()) == null) {
+                            account.addTransaction(transaction);
+                        }
+                    } else if (line.startsWith("DEL|")) {
+                        account.removeTransaction(line.substring(4));
+                    } else if (line.startsWith("BUDGET|")) {
+                        String[] parts = line.split("\\|");
+                        Category category = findCategory(account, parts[1], parts[2]);
+                        if (category != null) {
+                            category.setBudget(Double.parseDouble(parts[3]));
+                        }
                     }
                 } catch (Exception e) {
-                    System.err.println("⚠️  Bỏ qua dòng lỗi: " + line);
+                    System.err.println("⚠️  Bỏ qua dòng journal lỗi: " + line);
                 }
             }
         }
     }
     
+    /**
+     * Tìm danh mục theo tên và loại ("Khác" có ở cả THU và CHI)
+     */
+    private Category findCategory(Account account, String name, String type) {
+        for (Category c : account.getCategoriesByType(type)) {
+            if (c.getName().equalsIgnoreCase(name)) {
+                return c;
+            }
+        }
+        return null;
+    }
+    
     /**
      * Parse một dòng text thành Transaction object
      * Format: TYPE|ID|DATE|AMOUNT|CATEGORY|NOTE
@@ -180,18 +706,46 @@ public class FileManager {
      * Export báo cáo ra file CSV
      */
     public void exportCSV(String csvContent, String fileName) {
+        long start = System.nanoTime();
         try {
             createDirectoryIfNotExists(EXPORT_DIR);
             
             String filePath = EXPORT_DIR + "/" + fileName;
-            try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(filePath, StandardCharsets.UTF_8))) {
                 writer.print(csvContent);
             }
+            BYTES_WRITTEN.add(fileSizes(filePath));
             
             System.out.println("✓ Đã export file: " + filePath);
             
         } catch (IOException e) {
             System.err.println("✗ Lỗi khi export CSV: " + e.getMessage());
+        } finally {
+            EXPORT_TIME.recordSince(start);
+        }
+    }
+    
+    /**
+     * Export báo cáo CSV bằng cách ghi thẳng từng dòng xuống file (UTF-8)
+     * Bộ nhớ dùng không phụ thuộc số lượng giao dịch
+     */
+    public void exportCSV(ReportService reportService, LocalDate from, LocalDate to, String fileName) {
+        long start = System.nanoTime();
+        try {
+            createDirectoryIfNotExists(EXPORT_DIR);
+            
+            Path filePath = Paths.get(EXPORT_DIR, fileName);
+            try (Writer writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8)) {
+                reportService.writeCSV(from, to, writer);
+            }
+            BYTES_WRITTEN.add(Files.size(filePath));
+            
+            System.out.println("✓ Đã export file: " + filePath);
+            
+        } catch (IOException e) {
+            System.err.println("✗ Lỗi khi export CSV: " + e.getMessage());
+        } finally {
+            EXPORT_TIME.recordSince(start);
         }
     }
     
@@ -199,9 +753,10 @@ public class FileManager {
      * Kiểm tra xem có file dữ liệu cũ hay không
      */
     public boolean hasExistingData() {
-        File accountFile = new File(ACCOUNT_FILE);
-        File transactionFile = new File(TRANSACTIONS_FILE);
-        return accountFile.exists() && transactionFile.exists();
+        File accountFile = new File(this.accountFile);
+        File transactionFile = new File(transactionsFile);
+        File columnarFile = new File(this.columnarFile);
+        return accountFile.exists() && (transactionFile.exists() || columnarFile.exists());
     }
     
     /**
@@ -210,50 +765,77 @@ public class FileManager {
     public boolean clearAllData() {
         boolean success = true;
         
-        File accountFile = new File(ACCOUNT_FILE);
+        File accountFile = new File(this.accountFile);
         if (accountFile.exists()) {
             success &= accountFile.delete();
         }
         
-        File transactionFile = new File(TRANSACTIONS_FILE);
+        File transactionFile = new File(transactionsFile);
         if (transactionFile.exists()) {
             success &= transactionFile.delete();
         }
         
+        File columnarFile = new File(this.columnarFile);
+        if (columnarFile.exists()) {
+            success &= columnarFile.delete();
+        }
+        
+        success &= clearJournal();
+        
+        File snapshotFile = new File(this.snapshotFile);
+        if (snapshotFile.exists()) {
+            success &= snapshotFile.delete();
+        }
+        
         return success;
     }
     
     /**
-     * Tạo bản backup dữ liệu
+     * Tạo bản backup dữ liệu: một thế hệ mới trong thư mục backups, chỉ chép phần giao dịch
+     * thêm mới kể từ lần backup trước nếu được (xem BackupManager)
      */
     public void createBackup() {
+        // Lưu nốt các thay đổi đang chờ của chế độ lưu nền
+        flush();
+        
+        long start = System.nanoTime();
         try {
-            String timestamp = LocalDate.now().toString();
+            BackupManager.Generation generation;
             
-            // Backup account
-            copyFile(ACCOUNT_FILE, DATA_DIR + "/account_backup_" + timestamp + ".txt");
+            // Giữ khóa để không có lần lưu nào thay file giữa chừng
+            synchronized (this) {
+                File dataFile = currentDataFile();
+                boolean appendOnly = !dataFile.getPath().equals(columnarFile);
+                generation = backupManager.backup(dataFile, appendOnly,
+                    new File(accountFile), new File(rotatedJournalFile), new File(journalFile));
+            }
             
-            // Backup transactions
-            copyFile(TRANSACTIONS_FILE, DATA_DIR + "/transactions_backup_" + timestamp + ".txt");
+            BYTES_WRITTEN.add(generation.getBytesWritten());
             
-            System.out.println("✓ Đã tạo bản backup!");
+            System.out.printf("✓ Đã tạo bản backup %s trong %d ms%n",
+                generation, (System.nanoTime() - start) / 1_000_000);
             
         } catch (IOException e) {
             System.err.println("✗ Lỗi khi tạo backup: " + e.getMessage());
+        } finally {
+            BACKUP_TIME.recordSince(start);
         }
     }
     
     /**
-     * Copy file từ source sang destination
+     * Tổng kích thước các file (bỏ qua đường dẫn null hoặc file không tồn tại), dùng cho bộ đếm byte
      */
-    private void copyFile(String source, String destination) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(source));
-             PrintWriter writer = new PrintWriter(new FileWriter(destination))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                writer.println(line);
+    private static long fileSizes(String... paths) {
+        long total = 0;
+        for (String path : paths) {
+            if (path != null) {
+                total += new File(path).length();
             }
         }
+        return total;
+    }
+    
+    public BackupManager getBackupManager() {
+        return backupManager;
     }
 }
\ No newline at end of file
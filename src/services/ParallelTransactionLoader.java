@@ -0,0 +1,327 @@
+package services;
+
+import models.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Đọc transactions.txt song song bằng fork-join
+ * File được chia thành các đoạn tại ranh giới xuống dòng, mỗi đoạn được quét
+ * trực tiếp trên byte (không dùng regex, không dùng DateTimeFormatter),
+ * sau đó kết quả được gộp vào Account theo đúng thứ tự trong file.
+ */
+public class ParallelTransactionLoader {
+    private static final int MIN_CHUNK_SIZE = 1 << 20;   // 1 MB mỗi đoạn
+    private static final byte SEPARATOR = '|';
+    
+    private final ForkJoinPool pool;
+    private final Charset charset;   // Cùng charset (UTF-8) với FileManager khi lưu
+    
+    // Thống kê của lần đọc gần nhất
+    private int rowCount;
+    private int skippedCount;
+    private long elapsedNanos;
+    
+    public ParallelTransactionLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    public ParallelTransactionLoader(ForkJoinPool pool) {
+        this.pool = pool;
+        this.charset = StandardCharsets.UTF_8;
+    }
+    
+    /**
+     * Đọc file và thêm các giao dịch vào tài khoản (không cập nhật số dư)
+     */
+    public void load(File file, Account account) throws IOException {
+        long start = System.nanoTime();
+        
+        // Đọc cả file vào heap thay vì map: vùng map giữ khóa file (Windows) tới khi bị GC thu hồi,
+        // khiến lần lưu sau không thay được transactions.txt
+        if (file.length() > Integer.MAX_VALUE) {
+            throw new IOException("File quá lớn để đọc song song: " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        
+        // Danh mục dùng chung giữa các luồng, khóa theo tên (giống getCategoryByName)
+        Map<String, Category> categories = new ConcurrentHashMap<>();
+        for (Category c : account.getCategories()) {
+            categories.putIfAbsent(c.getName().toLowerCase(), c);
+        }
+        
+        int[] bounds = splitAtNewlines(buffer);
+        Chunk[] chunks = new Chunk[bounds.length - 1];
+        pool.invoke(new ParseTask(buffer, bounds, chunks, categories, 0, chunks.length));
+        
+        // Gộp theo thứ tự đoạn = thứ tự trong file
+        Set<Category> known = Collections.newSetFromMap(new IdentityHashMap<>());
+        known.addAll(account.getCategories());
+        rowCount = 0;
+        skippedCount = 0;
+        for (Chunk chunk : chunks) {
+            for (Transaction t : chunk.transactions) {
+                // Danh mục mới gặp trong file được thêm theo thứ tự xuất hiện
+                if (known.add(t.getCategory())) {
+                    account.addCategory(t.getCategory());
+                }
+                account.restoreTransaction(t);
+            }
+            for (String line : chunk.skippedLines) {
+                System.err.println("⚠️  Bỏ qua dòng lỗi: " + line);
+            }
+            rowCount += chunk.transactions.size();
+            skippedCount += chunk.skippedLines.size();
+        }
+        
+        elapsedNanos = System.nanoTime() - start;
+    }
+    
+    /**
+     * Chia file thành các đoạn, mỗi ranh giới nằm ngay sau một ký tự xuống dòng
+     */
+    private int[] splitAtNewlines(ByteBuffer buffer) {
+        int size = buffer.limit();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4));
+        
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int pos = 0;
+        while (pos < size) {
+            int next = Math.min(size, pos + chunkSize);
+            while (next < size && buffer.get(next - 1) != '\n') {
+                next++;
+            }
+            bounds.add(next);
+            pos = next;
+        }
+        
+        int[] result = new int[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+    
+    // ===== THỐNG KÊ =====
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+    
+    /**
+     * Tốc độ đọc của lần gần nhất (dòng/giây)
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowCount * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    /**
+     * Kết quả parse của một đoạn
+     */
+    private static class Chunk {
+        final List<Transaction> transactions = new ArrayList<>();
+        final List<String> skippedLines = new ArrayList<>();
+    }
+    
+    /**
+     * Chia đôi dải đoạn cho tới khi còn một đoạn thì parse
+     */
+    private class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final ByteBuffer buffer;
+        private final int[] bounds;
+        private final Chunk[] chunks;
+        private final Map<String, Category> categories;
+        private final int from;
+        private final int to;
+        
+        ParseTask(ByteBuffer buffer, int[] bounds, Chunk[] chunks,
+                  Map<String, Category> categories, int from, int to) {
+            this.buffer = buffer;
+            this.bounds = bounds;
+            this.chunks = chunks;
+            this.categories = categories;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    chunks[from] = parseChunk(buffer, bounds[from], bounds[from + 1], categories);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ParseTask(buffer, bounds, chunks, categories, from, mid),
+                      new ParseTask(buffer, bounds, chunks, categories, mid, to));
+        }
+    }
+    
+    /**
+     * Quét từng dòng trong đoạn [start, end)
+     * Format: TYPE|ID|DATE|AMOUNT|CATEGORY|NOTE
+     */
+    private Chunk parseChunk(ByteBuffer buffer, int start, int end, Map<String, Category> categories) {
+        Chunk chunk = new Chunk();
+        int[] fields = new int[7];   // Vị trí bắt đầu của 6 trường + vị trí kết thúc dòng
+        
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            
+            if (contentEnd > lineStart) {
+                try {
+                    Transaction t = parseLine(buffer, lineStart, contentEnd, fields, categories);
+                    if (t != null) {
+                        chunk.transactions.add(t);
+                    }
+                } catch (RuntimeException e) {
+                    chunk.skippedLines.add(string(buffer, lineStart, contentEnd));
+                }
+            }
+            
+            lineStart = lineEnd + 1;
+        }
+        
+        return chunk;
+    }
+    
+    private Transaction parseLine(ByteBuffer buffer, int start, int end, int[] fields,
+                                  Map<String, Category> categories) {
+        // Tìm vị trí các dấu '|'
+        int count = 0;
+        fields[count++] = start;
+        for (int i = start; i < end && count < 6; i++) {
+            if (buffer.get(i) == SEPARATOR) {
+                fields[count++] = i + 1;
+            }
+        }
+        if (count < 6) {
+            return null;   // Thiếu trường, giống parseTransactionFromLine
+        }
+        
+        // Ghi chú kết thúc ở dấu '|' tiếp theo (nếu có) hoặc cuối dòng
+        int noteEnd = fields[5];
+        while (noteEnd < end && buffer.get(noteEnd) != SEPARATOR) {
+            noteEnd++;
+        }
+        fields[6] = noteEnd + 1;
+        
+        boolean income = fields[1] - fields[0] - 1 == 3
+            && buffer.get(start) == 'T' && buffer.get(start + 1) == 'H' && buffer.get(start + 2) == 'U';
+        String type = income ? "THU" : string(buffer, fields[0], fields[1] - 1);
+        
+        String id = string(buffer, fields[1], fields[2] - 1);
+        LocalDate date = parseDate(buffer, fields[2], fields[3] - 1);
+        if (!Account.isSupportedDate(date)) {
+            throw new IllegalArgumentException("Ngày ngoài khoảng cho phép");   // Dòng bị bỏ qua
+        }
+        double amount = parseAmount(buffer, fields[3], fields[4] - 1);
+        String categoryName = string(buffer, fields[4], fields[5] - 1);
+        String note = string(buffer, fields[5], fields[6] - 1);
+        
+        Category category = categories.computeIfAbsent(categoryName.toLowerCase(),
+            k -> new Category(categoryName, type));
+        
+        if (income) {
+            return new Income(id, date, amount, category, note);
+        } else {
+            return new Expense(id, date, amount, category, note);
+        }
+    }
+    
+    /**
+     * Parse ngày dạng yyyy-MM-dd trực tiếp từ các chữ số
+     */
+    private static LocalDate parseDate(ByteBuffer buffer, int start, int end) {
+        if (end - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            throw new IllegalArgumentException("Ngày không hợp lệ");
+        }
+        int year = digits(buffer, start, start + 4);
+        int month = digits(buffer, start + 5, start + 7);
+        int day = digits(buffer, start + 8, start + 10);
+        return LocalDate.of(year, month, day);
+    }
+    
+    private static int digits(ByteBuffer buffer, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int d = buffer.get(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new IllegalArgumentException("Không phải chữ số");
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+    
+    /**
+     * Parse số tiền dạng [-]digits[.digits] (chấp nhận cả dấu ',' thập phân
+     * do String.format phụ thuộc locale khi lưu)
+     */
+    private static double parseAmount(ByteBuffer buffer, int start, int end) {
+        if (start >= end) {
+            throw new IllegalArgumentException("Thiếu số tiền");
+        }
+        
+        boolean negative = buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        long mantissa = 0;
+        long scale = 1;
+        boolean fraction = false;
+        
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if ((b == '.' || b == ',') && !fraction) {
+                fraction = true;
+            } else if (b >= '0' && b <= '9' && mantissa < Long.MAX_VALUE / 10) {
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction) {
+                    scale *= 10;
+                }
+            } else {
+                // Dạng lạ (VD: 1.0E7), dùng cách parse thông thường
+                return Double.parseDouble(new String(bytes(buffer, start, end), StandardCharsets.US_ASCII).replace(',', '.'));
+            }
+        }
+        
+        double value = (double) mantissa / scale;
+        return negative ? -value : value;
+    }
+    
+    private String string(ByteBuffer buffer, int start, int end) {
+        return new String(bytes(buffer, start, end), charset);
+    }
+    
+    private static byte[] bytes(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return bytes;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package services;
+
+import models.*;
+import java.time.LocalDate;
+
+/**
+ * Bộ máy tổng hợp báo cáo
+ * Duyệt các dòng trong khoảng thời gian đúng một lần và điền vào ReportSummary
+ * (đọc thẳng từ các cột của TransactionTable, không tạo đối tượng Transaction)
+ */
+public class ReportAggregator {
+    private Account account;
+    
+    public ReportAggregator(Account account) {
+        this.account = account;
+    }
+    
+    /**
+     * Tổng hợp toàn bộ số liệu của khoảng thời gian trong một lần duyệt
+     */
+    public ReportSummary aggregate(LocalDate from, LocalDate to) {
+        ReportSummary summary = new ReportSummary(from, to, account.getTable());
+        account.forEachRowInDateRange(from, to, summary::acceptRow);
+        return summary;
+    }
+}
\ No newline at end of file
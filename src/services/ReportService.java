@@ -1,58 +1,123 @@
 package services;
 
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import models.*;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Service xử lý báo cáo và thống kê
+ *
+ * Các báo cáo theo khoảng thời gian được lưu đệm (LRU, tối đa cacheCapacity mục) theo
+ * (loại báo cáo, from, to, Account.getVersion()). Mọi thay đổi dữ liệu đều làm tăng version
+ * nên báo cáo cũ không bao giờ được trả lại, không cần xóa đệm thủ công; các mục cũ tự bị đẩy ra.
+ *
+ * Mỗi hàm public ghi độ trễ vào một timer "report.*" của Metrics (tính cả lần lấy từ bộ nhớ đệm).
  */
 public class ReportService {
+    private static final int DEFAULT_CACHE_CAPACITY = 64;
+    private static final int EXPORT_PAGE_SIZE = 1000;   // Số dòng chép ra mỗi lần giữ khóa đọc khi xuất CSV
+    
+    private static final LatencyHistogram SUMMARIZE_TIME = Metrics.timer("report.summarize");
+    private static final LatencyHistogram TOTALS_TIME = Metrics.timer("report.totals");
+    private static final LatencyHistogram SUMMARY_REPORT_TIME = Metrics.timer("report.summaryReport");
+    private static final LatencyHistogram CATEGORY_REPORT_TIME = Metrics.timer("report.categoryReport");
+    private static final LatencyHistogram BUDGET_WARNINGS_TIME = Metrics.timer("report.budgetWarnings");
+    private static final LatencyHistogram TOP_CATEGORIES_TIME = Metrics.timer("report.topCategories");
+    private static final LatencyHistogram LARGEST_TIME = Metrics.timer("report.largest");
+    private static final LatencyHistogram LARGEST_REPORT_TIME = Metrics.timer("report.largestReport");
+    private static final LatencyHistogram EXPORT_TIME = Metrics.timer("report.exportCSV");
+    private static final LatencyHistogram WRITE_CSV_TIME = Metrics.timer("report.writeCSV");
+    private static final LatencyHistogram STATISTICS_TIME = Metrics.timer("report.statistics");
+    private static final LongAdder CACHE_HITS = Metrics.counter("report.cacheHits");
+    private static final LongAdder CACHE_MISSES = Metrics.counter("report.cacheMisses");
+    
     private Account account;
+    private ReportAggregator aggregator;
+    private Map<ReportKey, Object> cache;    // LinkedHashMap theo thứ tự truy cập, khóa bằng chính nó
+    private long cacheHits;
+    private long cacheMisses;
     
     public ReportService(Account account) {
+        this(account, DEFAULT_CACHE_CAPACITY);
+    }
+    
+    /**
+     * @param cacheCapacity số báo cáo giữ trong bộ nhớ đệm (0 = không lưu đệm)
+     */
+    public ReportService(Account account, int cacheCapacity) {
         this.account = account;
+        this.aggregator = new ReportAggregator(account);
+        this.cache = new LinkedHashMap<ReportKey, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ReportKey, Object> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+    }
+    
+    /**
+     * Tổng hợp số liệu của khoảng thời gian trong một lần duyệt
+     * Có thể truyền kết quả cho các hàm báo cáo bên dưới để không phải duyệt lại
+     */
+    public ReportSummary summarize(LocalDate from, LocalDate to) {
+        return SUMMARIZE_TIME.time(() -> cached("SUMMARY", from, to, () -> aggregator.aggregate(from, to)));
     }
     
     /**
      * Tính tổng thu nhập trong khoảng thời gian
+     * Đọc từ tổng tích lũy theo ngày của Account, không duyệt giao dịch
      */
     public double getTotalIncome(LocalDate from, LocalDate to) {
-        return account.getTransactionsByDateRange(from, to).stream()
-            .filter(t -> t instanceof Income)
-            .mapToDouble(Transaction::getAmount)
-            .sum();
+        return TOTALS_TIME.time(() -> account.getIncomeTotal(from, to));
     }
     
     /**
      * Tính tổng chi tiêu trong khoảng thời gian
      */
     public double getTotalExpense(LocalDate from, LocalDate to) {
-        return account.getTransactionsByDateRange(from, to).stream()
-            .filter(t -> t instanceof Expense)
-            .mapToDouble(Transaction::getAmount)
-            .sum();
+        return TOTALS_TIME.time(() -> account.getExpenseTotal(from, to));
     }
     
     /**
      * Tính chênh lệch (thu - chi)
      */
     public double getNetAmount(LocalDate from, LocalDate to) {
-        return getTotalIncome(from, to) - getTotalExpense(from, to);
+        return TOTALS_TIME.time(() -> account.getIncomeTotal(from, to) - account.getExpenseTotal(from, to));
     }
     
     /**
      * Tạo báo cáo tổng quan theo khoảng thời gian
      */
     public String generateSummaryReport(LocalDate from, LocalDate to) {
+        return SUMMARY_REPORT_TIME.time(() ->
+            cached("SUMMARY_REPORT", from, to, () -> buildSummaryReport(summarize(from, to))));
+    }
+    
+    /**
+     * Tạo báo cáo tổng quan từ số liệu đã tổng hợp
+     */
+    public String generateSummaryReport(ReportSummary summary) {
+        return SUMMARY_REPORT_TIME.time(() -> buildSummaryReport(summary));
+    }
+    
+    private String buildSummaryReport(ReportSummary summary) {
         StringBuilder sb = new StringBuilder();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        LocalDate from = summary.getFrom();
+        LocalDate to = summary.getTo();
         
-        double totalIncome = getTotalIncome(from, to);
-        double totalExpense = getTotalExpense(from, to);
-        double netAmount = totalIncome - totalExpense;
+        double totalIncome = summary.getTotalIncome();
+        double totalExpense = summary.getTotalExpense();
+        double netAmount = summary.getNetAmount();
         
         sb.append("\n================================================\n");
         sb.append(String.format("  BAO CAO TU %s DEN %s\n", 
@@ -74,28 +139,30 @@ public class ReportService {
      * Tạo báo cáo chi tiết theo danh mục
      */
     public String generateCategoryReport(LocalDate from, LocalDate to) {
+        return CATEGORY_REPORT_TIME.time(() ->
+            cached("CATEGORY_REPORT", from, to, () -> buildCategoryReport(summarize(from, to))));
+    }
+    
+    /**
+     * Tạo báo cáo theo danh mục từ số liệu đã tổng hợp
+     */
+    public String generateCategoryReport(ReportSummary summary) {
+        return CATEGORY_REPORT_TIME.time(() -> buildCategoryReport(summary));
+    }
+    
+    private String buildCategoryReport(ReportSummary summary) {
         StringBuilder sb = new StringBuilder();
         
         sb.append("\n================================================\n");
         sb.append("        BAO CAO CHI TIEU THEO DANH MUC\n");
         sb.append("================================================\n");
         
-        // Nhóm chi tiêu theo danh mục
-        Map<String, Double> expenseByCategory = account.getTransactionsByDateRange(from, to).stream()
-            .filter(t -> t instanceof Expense)
-            .collect(Collectors.groupingBy(
-                t -> t.getCategory().getName(),
-                Collectors.summingDouble(Transaction::getAmount)
-            ));
-        
-        // Tính tổng chi tiêu
-        double totalExpense = expenseByCategory.values().stream()
-            .mapToDouble(Double::doubleValue)
-            .sum();
+        // Tổng chi tiêu
+        double totalExpense = summary.getTotalExpense();
         
         // Hiển thị từng danh mục
         for (Category category : account.getCategoriesByType("CHI")) {
-            double spent = expenseByCategory.getOrDefault(category.getName(), 0.0);
+            double spent = summary.getExpense(category.getName());
             double budget = category.getBudget();
             
             sb.append(String.format("  %-15s: %,12.0f VND", 
@@ -133,53 +200,75 @@ public class ReportService {
      * Kiểm tra và trả về danh sách cảnh báo ngân sách
      */
     public List<String> checkBudgetWarnings(LocalDate from, LocalDate to) {
+        return BUDGET_WARNINGS_TIME.time(() ->
+            cached("BUDGET_WARNINGS", from, to, () -> Collections.unmodifiableList(computeBudgetWarnings(from, to))));
+    }
+    
+    private List<String> computeBudgetWarnings(LocalDate from, LocalDate to) {
         List<String> warnings = new ArrayList<>();
         
         for (Category category : account.getCategoriesByType("CHI")) {
             if (category.hasBudget()) {
-                double spent = account.getTransactionsByDateRange(from, to).stream()
-                    .filter(t -> t instanceof Expense)
-                    .filter(t -> t.getCategory().equals(category))
-                    .mapToDouble(Transaction::getAmount)
-                    .sum();
-                
-                double percentage = (spent / category.getBudget()) * 100;
-                
-                if (percentage > 100) {
-                    warnings.add(String.format("⚠️  '%s' vượt %.0f%% ngân sách", 
-                        category.getName(), percentage - 100));
-                } else if (percentage > 80) {
-                    warnings.add(String.format("⚡ '%s' đã dùng %.0f%% ngân sách", 
-                        category.getName(), percentage));
-                }
+                // Tổng chi của danh mục lấy từ tổng tích lũy theo ngày, không duyệt giao dịch
+                double spent = account.getCategoryExpenseTotal(category.getName(), from, to);
+                addBudgetWarning(warnings, category, spent);
+            }
+        }
+        
+        return warnings;
+    }
+    
+    /**
+     * Kiểm tra cảnh báo ngân sách từ số liệu đã tổng hợp
+     */
+    public List<String> checkBudgetWarnings(ReportSummary summary) {
+        return BUDGET_WARNINGS_TIME.time(() -> computeBudgetWarnings(summary));
+    }
+    
+    private List<String> computeBudgetWarnings(ReportSummary summary) {
+        List<String> warnings = new ArrayList<>();
+        
+        for (Category category : account.getCategoriesByType("CHI")) {
+            if (category.hasBudget()) {
+                addBudgetWarning(warnings, category, summary.getExpense(category.getName()));
             }
         }
         
         return warnings;
     }
     
+    /**
+     * Thêm cảnh báo nếu chi tiêu vượt 80% hoặc 100% ngân sách
+     */
+    private void addBudgetWarning(List<String> warnings, Category category, double spent) {
+        double percentage = (spent / category.getBudget()) * 100;
+        
+        if (percentage > 100) {
+            warnings.add(String.format("⚠️  '%s' vượt %.0f%% ngân sách", 
+                category.getName(), percentage - 100));
+        } else if (percentage > 80) {
+            warnings.add(String.format("⚡ '%s' đã dùng %.0f%% ngân sách", 
+                category.getName(), percentage));
+        }
+    }
+    
     /**
      * Tạo báo cáo top danh mục chi tiêu nhiều nhất
      */
     public String generateTopExpenseCategories(LocalDate from, LocalDate to, int topN) {
-        Map<String, Double> expenseByCategory = account.getTransactionsByDateRange(from, to).stream()
-            .filter(t -> t instanceof Expense)
-            .collect(Collectors.groupingBy(
-                t -> t.getCategory().getName(),
-                Collectors.summingDouble(Transaction::getAmount)
-            ));
-        
-        // Sắp xếp và lấy top N
-        List<Map.Entry<String, Double>> topCategories = expenseByCategory.entrySet().stream()
-            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-            .limit(topN)
-            .collect(Collectors.toList());
-        
+        return TOP_CATEGORIES_TIME.time(() -> buildTopExpenseCategories(summarize(from, to), topN));
+    }
+    
+    public String generateTopExpenseCategories(ReportSummary summary, int topN) {
+        return TOP_CATEGORIES_TIME.time(() -> buildTopExpenseCategories(summary, topN));
+    }
+    
+    private String buildTopExpenseCategories(ReportSummary summary, int topN) {
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("\n🏆 TOP %d DANH MỤC CHI NHIỀU NHẤT:\n", topN));
         
         int rank = 1;
-        for (Map.Entry<String, Double> entry : topCategories) {
+        for (Map.Entry<String, Double> entry : topExpenseCategories(summary, topN)) {
             sb.append(String.format("  %d. %-15s: %,12.0f VND\n", 
                 rank++, entry.getKey(), entry.getValue()));
         }
@@ -188,47 +277,261 @@ public class ReportService {
     }
     
     /**
-     * Export dữ liệu sang định dạng CSV
+     * topN danh mục chi nhiều nhất, nhiều nhất trước
      */
-    public String exportToCSV(LocalDate from, LocalDate to) {
-        StringBuilder csv = new StringBuilder();
+    public List<Map.Entry<String, Double>> getTopExpenseCategories(ReportSummary summary, int topN) {
+        return TOP_CATEGORIES_TIME.time(() -> topExpenseCategories(summary, topN));
+    }
+    
+    private List<Map.Entry<String, Double>> topExpenseCategories(ReportSummary summary, int topN) {
+        // Bằng tiền thì tên đứng trước xếp trên
+        Comparator<Map.Entry<String, Double>> byAmount = (a, b) -> {
+            int cmp = Double.compare(a.getValue(), b.getValue());
+            return cmp != 0 ? cmp : b.getKey().compareTo(a.getKey());
+        };
+        return topN(summary.getExpenseByCategory().entrySet(), topN, byAmount);
+    }
+    
+    /**
+     * n khoản chi lớn nhất trong khoảng thời gian, lớn nhất trước
+     * Chỉ giữ n giao dịch trong heap khi duyệt, không sắp xếp cả khoảng
+     */
+    public List<Transaction> getLargestExpenses(LocalDate from, LocalDate to, int n) {
+        return LARGEST_TIME.time(() -> cached("LARGEST_EXPENSES:" + n, from, to, () -> Collections.unmodifiableList(
+            account.getLargest(new TransactionQuery().type("CHI").between(from, to), n))));
+    }
+    
+    /**
+     * n khoản thu lớn nhất trong khoảng thời gian, lớn nhất trước
+     */
+    public List<Transaction> getLargestIncomes(LocalDate from, LocalDate to, int n) {
+        return LARGEST_TIME.time(() -> cached("LARGEST_INCOMES:" + n, from, to, () -> Collections.unmodifiableList(
+            account.getLargest(new TransactionQuery().type("THU").between(from, to), n))));
+    }
+    
+    /**
+     * Tạo báo cáo n khoản chi lớn nhất
+     */
+    public String generateLargestExpenses(LocalDate from, LocalDate to, int n) {
+        return LARGEST_REPORT_TIME.time(() -> buildLargestExpenses(from, to, n));
+    }
+    
+    private String buildLargestExpenses(LocalDate from, LocalDate to, int n) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("\n💸 TOP %d KHOẢN CHI LỚN NHẤT:\n", n));
         
-        // Header
-        csv.append("Loại,ID,Ngày,Số tiền (VND),Danh mục,Ghi chú\n");
+        int rank = 1;
+        for (Transaction t : getLargestExpenses(from, to, n)) {
+            sb.append(String.format("  %d. %s %-15s: %,12.0f VND  %s\n", 
+                rank++, t.getDate().format(formatter), t.getCategory().getName(), t.getAmount(), t.getNote()));
+        }
         
-        // Sắp xếp theo ngày
-        List<Transaction> sortedTransactions = account.getTransactionsByDateRange(from, to);
-        sortedTransactions.sort(Comparator.comparing(Transaction::getDate));
+        return sb.toString();
+    }
+    
+    /**
+     * topN phần tử lớn nhất theo comparator, lớn nhất trước
+     * Min-heap giới hạn topN phần tử: O(m log topN) thời gian, O(topN) bộ nhớ với m phần tử
+     */
+    private static <T> List<T> topN(Collection<T> items, int topN, Comparator<? super T> comparator) {
+        if (topN < 1) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<T> heap = new PriorityQueue<>(Math.min(topN, items.size()) + 1, comparator);
+        for (T item : items) {
+            if (heap.size() < topN) {
+                heap.add(item);
+            } else if (comparator.compare(item, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(item);
+            }
+        }
         
-        // Data rows
-        for (Transaction t : sortedTransactions) {
-            csv.append(String.format("%s,%s,%s,%.0f,%s,\"%s\"\n",
-                t.getType(),
-                t.getId(),
-                t.getDate().format(formatter),
-                t.getAmount(),
-                t.getCategory().getName(),
-                t.getNote().replace("\"", "\"\"")));  // Escape quotes trong CSV
+        List<T> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll());
         }
+        Collections.reverse(result);
+        return result;
+    }
+    
+    /**
+     * Export dữ liệu sang định dạng CSV
+     */
+    public String exportToCSV(LocalDate from, LocalDate to) {
+        return EXPORT_TIME.time(() -> {
+            StringWriter csv = new StringWriter();
+            try {
+                writeCSV(from, to, csv);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);   // StringWriter không ném IOException
+            }
+            return csv.toString();
+        });
+    }
+    
+    /**
+     * Ghi CSV trực tiếp ra writer, từng dòng theo thứ tự ngày
+     * Không giữ toàn bộ nội dung trong bộ nhớ và không dùng String.format cho mỗi dòng.
+     * Dữ liệu được chép từng trang (getPage) khi giữ khóa đọc và chỉ ghi ra writer sau khi nhả khóa,
+     * nên writer chậm (vd: client HTTP) không chặn các luồng thêm / xóa giao dịch.
+     */
+    public void writeCSV(LocalDate from, LocalDate to, Writer writer) throws IOException {
+        long start = System.nanoTime();
+        try {
+            writeCSVRows(from, to, writer);
+        } finally {
+            WRITE_CSV_TIME.recordSince(start);
+        }
+    }
+    
+    private void writeCSVRows(LocalDate from, LocalDate to, Writer writer) throws IOException {
+        // Header
+        writer.write("Loại,ID,Ngày,Số tiền (VND),Danh mục,Ghi chú\n");
         
-        return csv.toString();
+        // Data rows (chỉ mục ngày của Account đã sắp xếp sẵn)
+        char[] date = new char[10];
+        String cursor = null;
+        do {
+            TransactionPage page = account.getPage(TransactionPage.Order.DATE_ASC, cursor, EXPORT_PAGE_SIZE,
+                from, to, null);
+            for (Transaction t : page.getItems()) {
+                writeCSVRow(writer, t, date);
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+    
+    /**
+     * Ghi một dòng CSV: TYPE,ID,dd/MM/yyyy,AMOUNT,CATEGORY,"NOTE"
+     */
+    private void writeCSVRow(Writer writer, Transaction t, char[] date) throws IOException {
+        LocalDate d = t.getDate();
+        putDigits(date, 0, d.getDayOfMonth(), 2);
+        date[2] = '/';
+        putDigits(date, 3, d.getMonthValue(), 2);
+        date[5] = '/';
+        putDigits(date, 6, d.getYear(), 4);
+        
+        writer.write(t.getType());
+        writer.write(',');
+        writer.write(t.getId());
+        writer.write(',');
+        writer.write(date);
+        writer.write(',');
+        writer.write(Long.toString(Math.round(t.getAmount())));
+        writer.write(',');
+        writer.write(t.getCategory().getName());
+        writer.write(",\"");
+        writer.write(t.getNote().replace("\"", "\"\""));  // Escape quotes trong CSV
+        writer.write("\"\n");
+    }
+    
+    private static void putDigits(char[] buffer, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
     }
     
     /**
      * Lấy thống kê tổng quan
      */
     public Map<String, Object> getStatistics(LocalDate from, LocalDate to) {
+        return STATISTICS_TIME.time(() -> buildStatistics(from, to));
+    }
+    
+    private Map<String, Object> buildStatistics(LocalDate from, LocalDate to) {
         Map<String, Object> stats = new HashMap<>();
         
-        List<Transaction> transactions = account.getTransactionsByDateRange(from, to);
+        ReportSummary summary = summarize(from, to);
         
-        stats.put("totalTransactions", transactions.size());
-        stats.put("totalIncome", getTotalIncome(from, to));
-        stats.put("totalExpense", getTotalExpense(from, to));
-        stats.put("netAmount", getNetAmount(from, to));
-        stats.put("averageExpensePerDay", getTotalExpense(from, to) / (to.toEpochDay() - from.toEpochDay() + 1));
+        stats.put("totalTransactions", summary.getTransactionCount());
+        stats.put("totalIncome", summary.getTotalIncome());
+        stats.put("totalExpense", summary.getTotalExpense());
+        stats.put("netAmount", summary.getNetAmount());
+        stats.put("averageExpensePerDay", summary.getTotalExpense() / summary.getDayCount());
+        stats.put("minAmount", summary.getMinAmount());
+        stats.put("maxAmount", summary.getMaxAmount());
         
         return stats;
     }
+    
+    // ===== BỘ NHỚ ĐỆM =====
+    /**
+     * Lấy báo cáo từ bộ nhớ đệm hoặc tính rồi lưu lại
+     * Version được đọc trước khi tính: nếu dữ liệu đổi trong lúc tính, kết quả nằm dưới version cũ
+     * và các lần gọi sau (đọc version mới) sẽ tính lại.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String report, LocalDate from, LocalDate to, Supplier<T> compute) {
+        ReportKey key = new ReportKey(report, from, to, account.getVersion());
+        synchronized (cache) {
+            Object value = cache.get(key);
+            if (value != null) {
+                cacheHits++;
+                CACHE_HITS.increment();
+                return (T) value;
+            }
+            cacheMisses++;
+            CACHE_MISSES.increment();
+        }
+        
+        // Tính ngoài khóa để các báo cáo khác không phải chờ
+        T value = compute.get();
+        synchronized (cache) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+    
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+    
+    public long getCacheHits() {
+        synchronized (cache) {
+            return cacheHits;
+        }
+    }
+    
+    public long getCacheMisses() {
+        synchronized (cache) {
+            return cacheMisses;
+        }
+    }
+    
+    /**
+     * Khóa của một báo cáo trong bộ nhớ đệm
+     */
+    private static final class ReportKey {
+        private final String report;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final long version;
+        
+        ReportKey(String report, LocalDate from, LocalDate to, long version) {
+            this.report = report;
+            this.from = from;
+            this.to = to;
+            this.version = version;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof ReportKey)) return false;
+            ReportKey other = (ReportKey) obj;
+            return version == other.version && report.equals(other.report)
+                && Objects.equals(from, other.from) && Objects.equals(to, other.to);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(report, from, to, version);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package services;
+
+import models.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kết quả tổng hợp của một khoảng thời gian
+ * Được điền trong một lần duyệt duy nhất, dùng chung cho mọi báo cáo.
+ * Cộng dồn trên cột số tiền (xu, kiểu long) của TransactionTable nên không bị sai số của double.
+ */
+public class ReportSummary {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final TransactionTable table;
+    
+    private long totalIncome;
+    private long totalExpense;
+    private int incomeCount;
+    private int expenseCount;
+    private long minAmount = Long.MAX_VALUE;
+    private long maxAmount = Long.MIN_VALUE;
+    
+    // Tổng chi theo số thứ tự danh mục trong bảng
+    private long[] expenseByOrdinal;
+    private volatile Map<String, Double> expenseByCategory;   // Tạo khi cần từ expenseByOrdinal
+    
+    public ReportSummary(LocalDate from, LocalDate to, TransactionTable table) {
+        this.from = from;
+        this.to = to;
+        this.table = table;
+        this.expenseByOrdinal = new long[table.getCategoryCount()];
+    }
+    
+    /**
+     * Cộng một dòng của bảng giao dịch vào các bộ đếm
+     */
+    public void acceptRow(int row) {
+        long amount = table.getAmountMinor(row);
+        
+        if (table.isIncome(row)) {
+            totalIncome += amount;
+            incomeCount++;
+        } else {
+            totalExpense += amount;
+            expenseCount++;
+            int ordinal = table.getCategoryOrdinal(row);
+            if (ordinal >= expenseByOrdinal.length) {
+                // Danh mục được thêm sau khi tạo summary (luồng khác vừa ghi)
+                expenseByOrdinal = Arrays.copyOf(expenseByOrdinal, table.getCategoryCount());
+            }
+            expenseByOrdinal[ordinal] += amount;
+        }
+        
+        minAmount = Math.min(minAmount, amount);
+        maxAmount = Math.max(maxAmount, amount);
+    }
+    
+    // ===== GETTERS =====
+    public LocalDate getFrom() {
+        return from;
+    }
+    
+    public LocalDate getTo() {
+        return to;
+    }
+    
+    public double getTotalIncome() {
+        return totalIncome / 100.0;
+    }
+    
+    public double getTotalExpense() {
+        return totalExpense / 100.0;
+    }
+    
+    public double getNetAmount() {
+        return (totalIncome - totalExpense) / 100.0;
+    }
+    
+    public int getIncomeCount() {
+        return incomeCount;
+    }
+    
+    public int getExpenseCount() {
+        return expenseCount;
+    }
+    
+    public int getTransactionCount() {
+        return incomeCount + expenseCount;
+    }
+    
+    /**
+     * Số tiền nhỏ nhất trong khoảng (0 nếu không có giao dịch)
+     */
+    public double getMinAmount() {
+        return getTransactionCount() == 0 ? 0 : minAmount / 100.0;
+    }
+    
+    /**
+     * Số tiền lớn nhất trong khoảng (0 nếu không có giao dịch)
+     */
+    public double getMaxAmount() {
+        return getTransactionCount() == 0 ? 0 : maxAmount / 100.0;
+    }
+    
+    /**
+     * Tổng chi của một danh mục (0 nếu không có)
+     */
+    public double getExpense(String categoryName) {
+        return expenseByName().getOrDefault(categoryName, 0.0);
+    }
+    
+    public Map<String, Double> getExpenseByCategory() {
+        return new HashMap<>(expenseByName());
+    }
+    
+    /**
+     * Gộp tổng chi theo tên danh mục (chỉ tính một lần)
+     * Summary có thể được ReportService lưu đệm và đọc từ nhiều luồng: map chỉ được gán khi đã đầy đủ
+     */
+    private Map<String, Double> expenseByName() {
+        Map<String, Double> result = expenseByCategory;
+        if (result == null) {
+            Map<String, Long> minorByName = new HashMap<>();
+            for (int ordinal = 0; ordinal < expenseByOrdinal.length; ordinal++) {
+                if (expenseByOrdinal[ordinal] != 0) {
+                    minorByName.merge(table.getCategoryByOrdinal(ordinal).getName(),
+                        expenseByOrdinal[ordinal], Long::sum);
+                }
+            }
+            
+            Map<String, Double> byName = new HashMap<>();
+            minorByName.forEach((name, minor) -> byName.put(name, minor / 100.0));
+            expenseByCategory = byName;
+            result = byName;
+        }
+        return result;
+    }
+    
+    /**
+     * Số ngày trong khoảng (tính cả 2 đầu)
+     */
+    public long getDayCount() {
+        return to.toEpochDay() - from.toEpochDay() + 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package services;
+
+import models.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lưu nền (write-behind) cho FileManager
+ * Mỗi thay đổi chỉ tăng bộ đếm "bẩn"; một luồng nền gộp các thay đổi dồn dập thành
+ * một lần ghi sau mỗi intervalMillis, hoặc sớm hơn khi đã có maxChanges thay đổi.
+ * Nhờ vậy thời gian phản hồi của giao diện không còn phụ thuộc tốc độ đĩa.
+ */
+public class WriteBehindSaver implements AutoCloseable {
+    /**
+     * Mức bền vững khi chương trình bị dừng đột ngột
+     */
+    public enum Durability {
+        ASYNC,     // Chỉ lưu nền: có thể mất các thay đổi chưa lưu (tối đa intervalMillis / maxChanges)
+        JOURNAL,   // Ghi journal ngay cho từng thay đổi (O(1)), bản lưu đầy đủ làm ở nền
+        FSYNC      // Như JOURNAL nhưng fsync journal và file dữ liệu, không mất thay đổi kể cả khi mất điện
+    }
+    
+    private final FileManager fileManager;
+    private final Account account;
+    private final int maxChanges;
+    private final Durability durability;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger pendingChanges;    // Số thay đổi chưa được lưu
+    private final AtomicBoolean flushQueued;       // Đã xếp một lần lưu sớm (đủ maxChanges) chưa
+    private volatile long flushCount;
+    
+    WriteBehindSaver(FileManager fileManager, Account account, long intervalMillis, int maxChanges,
+                     Durability durability) {
+        this.fileManager = fileManager;
+        this.account = account;
+        this.maxChanges = Math.max(1, maxChanges);
+        this.durability = durability;
+        this.pendingChanges = new AtomicInteger();
+        this.flushQueued = new AtomicBoolean();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "write-behind-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Ghi nhận một thay đổi; xếp lịch lưu sớm nếu đã dồn đủ maxChanges thay đổi
+     */
+    void markDirty() {
+        if (pendingChanges.incrementAndGet() >= maxChanges && flushQueued.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Đang đóng: close() sẽ tự lưu lần cuối
+            }
+        }
+    }
+    
+    /**
+     * Lưu ngay nếu có thay đổi đang chờ (chạy trên luồng gọi, vd: khi thoát chương trình)
+     * Cũng là thân của tác vụ lưu định kỳ nên không ném ngoại lệ: lỗi được ghi log và giữ lại số thay đổi.
+     */
+    public synchronized void flush() {
+        flushQueued.set(false);
+        int changes = pendingChanges.getAndSet(0);
+        if (changes == 0) {
+            return;
+        }
+        
+        boolean saved;
+        try {
+            saved = fileManager.writeSnapshot(account);
+        } catch (RuntimeException e) {
+            // Lỗi lọt ra luồng nền sẽ làm scheduler hủy mọi lần lưu sau, nên chỉ ghi log
+            System.err.println("✗ Lỗi khi lưu nền: " + e);
+            saved = false;
+        }
+        
+        if (saved) {
+            flushCount++;
+        } else {
+            // Giữ lại để lần sau thử lưu tiếp
+            pendingChanges.addAndGet(changes);
+        }
+    }
+    
+    /**
+     * Lưu các thay đổi còn lại rồi dừng luồng nền
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+    
+    // ===== GETTERS =====
+    public Durability getDurability() {
+        return durability;
+    }
+    
+    public int getPendingChanges() {
+        return pendingChanges.get();
+    }
+    
+    /**
+     * Số lần đã ghi xuống đĩa (mỗi lần có thể gộp nhiều thay đổi)
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+}
\ No newline at end of file
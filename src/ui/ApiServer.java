@@ -0,0 +1,463 @@
+package ui;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import metrics.Metrics;
+import models.*;
+import services.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server HTTP (không giao diện) phục vụ Account và ReportService cho nhiều client cùng lúc
+ * Dùng com.sun.net.httpserver có sẵn trong JDK, mỗi request chạy trên một virtual thread
+ * nếu JDK hỗ trợ (21+), ngược lại dùng thread pool cố định.
+ *
+ * Các endpoint (ngày theo dạng yyyy-MM-dd, mặc định là tháng hiện tại):
+ *   GET    /api/account                              thông tin tài khoản
+ *   POST   /api/transactions                         thêm (type=THU|CHI, amount, category, date, note)
+ *          (body dạng form, tối đa 64 KB, lớn hơn trả về 413)
+ *   DELETE /api/transactions/{id}                    xóa
+ *   GET    /api/transactions?id=                      tìm theo ID
+ *   GET    /api/transactions?type=&category=a,b&from=&to=&min=&max=&q=   tìm kết hợp theo trang
+ *          (q: từ khóa ghi chú, limit mặc định 1000, order=date_asc|date_desc|id_asc|id_desc,
+ *           cursor = "next" của trang trước)
+ *   GET    /api/totals?from=&to=                     tổng thu, chi, chênh lệch
+ *   GET    /api/reports/category?from=&to=           chi tiêu theo danh mục
+ *   GET    /api/reports/top?from=&to=&n=&type=       n danh mục chi nhiều nhất và n giao dịch lớn nhất
+ *          (type=CHI mặc định hoặc THU, n mặc định 10)
+ *   GET    /api/export.csv?from=&to=                 xuất CSV
+ *   GET    /api/metrics                              độ trễ và bộ đếm (dạng văn bản, như Metrics.dump)
+ *
+ * Số đo còn xem được qua JMX (MBean Metrics.MBEAN_NAME) và được in ra stdout mỗi
+ * -Dmetrics.dumpSeconds giây (mặc định 60, 0 = tắt).
+ */
+public class ApiServer {
+    public static final int DEFAULT_PORT = 8080;
+    
+    private static final int BACKLOG = 4096;                // Số kết nối chờ tối đa
+    private static final int FALLBACK_THREADS = 64;         // Số luồng khi không có virtual thread
+    private static final int DEFAULT_SEARCH_LIMIT = 1000;
+    private static final int MAX_SEARCH_LIMIT = 10000;      // Trang lớn hơn thì dùng cursor
+    private static final int DEFAULT_TOP_N = 10;
+    private static final int MAX_BODY_BYTES = 64 * 1024;    // Body lớn hơn trả về 413
+    private static final long SAVE_INTERVAL_MILLIS = 1000;  // Lưu nền: gộp các thay đổi trong 1 giây
+    private static final int SAVE_MAX_CHANGES = 1000;
+    private static final long DEFAULT_METRICS_DUMP_SECONDS = 60;
+    private static final long STOP_TIMEOUT_SECONDS = 30;    // Thời gian chờ request đang chạy khi dừng
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    private Account account;
+    private ReportService reportService;
+    private FileManager fileManager;
+    
+    public ApiServer(int port) throws IOException {
+        this.fileManager = new FileManager();
+        this.account = fileManager.loadData();
+        this.reportService = new ReportService(account);
+        fileManager.enableWriteBehind(account, SAVE_INTERVAL_MILLIS, SAVE_MAX_CHANGES,
+            WriteBehindSaver.Durability.JOURNAL);
+        this.executor = createExecutor();
+        
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/api/account", handler(this::handleAccount));
+        server.createContext("/api/transactions", handler(this::handleTransactions));
+        server.createContext("/api/totals", handler(this::handleTotals));
+        server.createContext("/api/reports/category", handler(this::handleCategoryReport));
+        server.createContext("/api/reports/top", handler(this::handleTopReport));
+        server.createContext("/api/export.csv", handler(this::handleExport));
+        server.createContext("/api/metrics", handler(this::handleMetrics));
+    }
+    
+    /**
+     * Executor tạo một virtual thread cho mỗi request (JDK 21+), gọi qua reflection
+     * để vẫn biên dịch và chạy được trên JDK cũ hơn với thread pool thường
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("✓ Xử lý request bằng virtual thread");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("⚠️  JDK không hỗ trợ virtual thread, dùng " + FALLBACK_THREADS + " luồng");
+            return Executors.newFixedThreadPool(FALLBACK_THREADS);
+        }
+    }
+    
+    public void start() {
+        Metrics.registerMBean();
+        long dumpSeconds = Long.getLong("metrics.dumpSeconds", DEFAULT_METRICS_DUMP_SECONDS);
+        if (dumpSeconds > 0) {
+            Metrics.startPeriodicDump(dumpSeconds * 1000, System.out::print);
+        }
+        server.start();
+        System.out.println("✓ Server đang chạy tại http://localhost:" + server.getAddress().getPort() + "/api");
+    }
+    
+    /**
+     * Dừng nhận request, chờ request đang chạy rồi lưu các thay đổi còn lại
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("⚠️  Còn request chưa xong sau " + STOP_TIMEOUT_SECONDS + " giây, dừng hẳn");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        Metrics.stopPeriodicDump();
+        fileManager.close();
+    }
+    
+    // ===== ENDPOINTS =====
+    private interface Endpoint {
+        void handle(HttpExchange exchange, Map<String, String> params) throws IOException;
+    }
+    
+    /**
+     * Body của request vượt quá MAX_BODY_BYTES
+     */
+    private static class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        BodyTooLargeException() {
+            super("Body vượt quá " + MAX_BODY_BYTES + " byte");
+        }
+    }
+    
+    /**
+     * Bọc endpoint: đọc tham số, đổi lỗi dữ liệu vào thành 400, body quá lớn thành 413 và lỗi khác thành 500
+     * Nếu lỗi xảy ra khi đã gửi header (đang ghi body) thì chỉ đóng kết nối, client thấy response bị cắt.
+     */
+    private HttpHandler handler(Endpoint endpoint) {
+        return exchange -> {
+            try {
+                endpoint.handle(exchange, readParams(exchange));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                if (exchange.getResponseCode() == -1) {
+                    sendJson(exchange, 400, "{\"error\":" + quote(e.getMessage()) + "}");
+                }
+            } catch (BodyTooLargeException e) {
+                sendJson(exchange, 413, "{\"error\":" + quote(e.getMessage()) + "}");
+            } catch (Exception e) {
+                System.err.println("✗ Lỗi khi xử lý " + exchange.getRequestURI() + ": " + e);
+                if (exchange.getResponseCode() == -1) {
+                    sendJson(exchange, 500, "{\"error\":\"Lỗi máy chủ\"}");
+                }
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+    
+    private void handleAccount(HttpExchange exchange, Map<String, String> params) throws IOException {
+        requireMethod(exchange, "GET");
+        sendJson(exchange, 200, String.format(Locale.ROOT, "{\"name\":%s,\"balance\":%.2f,\"transactions\":%d}",
+            quote(account.getName()), account.getBalance(), account.getTransactionCount()));
+    }
+    
+    private void handleTransactions(HttpExchange exchange, Map<String, String> params) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String id = path.length() > "/api/transactions/".length() ? path.substring("/api/transactions/".length()) : null;
+        String method = exchange.getRequestMethod();
+        
+        if (id != null && method.equals("DELETE")) {
+            deleteTransaction(exchange, id);
+        } else if (id == null && method.equals("POST")) {
+            addTransaction(exchange, params);
+        } else if (id == null && method.equals("GET")) {
+            searchTransactions(exchange, params);
+        } else {
+            sendJson(exchange, 405, "{\"error\":\"Phương thức không được hỗ trợ\"}");
+        }
+    }
+    
+    private void addTransaction(HttpExchange exchange, Map<String, String> params) throws IOException {
+        String type = required(params, "type").toUpperCase(Locale.ROOT);
+        if (!type.equals("THU") && !type.equals("CHI")) {
+            throw new IllegalArgumentException("type phải là THU hoặc CHI");
+        }
+        
+        double amount = Double.parseDouble(required(params, "amount"));
+        if (!Double.isFinite(amount) || amount <= 0) {
+            throw new IllegalArgumentException("Số tiền phải là số hữu hạn lớn hơn 0");
+        }
+        
+        String categoryName = required(params, "category");
+        Category category = account.getCategoriesByType(type).stream()
+            .filter(c -> c.getName().equalsIgnoreCase(categoryName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Không có danh mục: " + categoryName));
+        
+        LocalDate date = params.containsKey("date") ? LocalDate.parse(params.get("date")) : LocalDate.now();
+        if (!Account.isSupportedDate(date)) {
+            throw new IllegalArgumentException("Ngày phải từ " + Account.MIN_DATE + " đến " + Account.MAX_DATE);
+        }
+        
+        // '|' và xuống dòng làm hỏng định dạng dòng của transactions.txt và journal
+        String note = params.getOrDefault("note", "Khong co ghi chu");
+        if (note.indexOf('|') >= 0 || note.indexOf('\r') >= 0 || note.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Ghi chú không được chứa '|' hoặc xuống dòng");
+        }
+        
+        String id = account.generateTransactionId();
+        Transaction transaction = type.equals("THU")
+            ? new Income(id, date, amount, category, note)
+            : new Expense(id, date, amount, category, note);
+        
+        account.addTransaction(transaction);
+        fileManager.recordAdd(account, transaction);
+        sendJson(exchange, 201, toJson(transaction));
+    }
+    
+    private void deleteTransaction(HttpExchange exchange, String id) throws IOException {
+        if (!account.removeTransaction(id)) {
+            sendJson(exchange, 404, "{\"error\":\"Không tìm thấy giao dịch\"}");
+            return;
+        }
+        fileManager.recordRemove(account, id);
+        exchange.sendResponseHeaders(204, -1);
+    }
+    
+    /**
+     * Tìm kiếm kết hợp nhiều điều kiện theo trang: trả về tối đa limit giao dịch và cursor "next" để lấy trang sau
+     */
+    private void searchTransactions(HttpExchange exchange, Map<String, String> params) throws IOException {
+        if (params.containsKey("id")) {
+            Transaction t = account.findTransactionById(params.get("id"));
+            sendPage(exchange, t == null ? List.of() : List.of(t), null);
+            return;
+        }
+        
+        // Các điều kiện được kết hợp (AND) trong một truy vấn, Account chọn chỉ mục phù hợp
+        TransactionQuery query = new TransactionQuery();
+        boolean filtered = false;
+        if (params.containsKey("type")) {
+            query.type(params.get("type").toUpperCase(Locale.ROOT));
+            filtered = true;
+        }
+        if (params.containsKey("category")) {
+            query.category(params.get("category").split(","));
+            filtered = true;
+        }
+        if (params.containsKey("min")) {
+            query.minAmount(Double.parseDouble(params.get("min")));
+            filtered = true;
+        }
+        if (params.containsKey("max")) {
+            query.maxAmount(Double.parseDouble(params.get("max")));
+            filtered = true;
+        }
+        if (params.containsKey("q")) {
+            query.note(params.get("q"));
+            filtered = true;
+        }
+        // Không có điều kiện nào thì mặc định là tháng hiện tại
+        if (params.containsKey("from") || params.containsKey("to") || !filtered) {
+            query.between(fromParam(params), toParam(params));
+        }
+        
+        int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_SEARCH_LIMIT;
+        limit = Math.min(limit, MAX_SEARCH_LIMIT);
+        TransactionPage.Order order = params.containsKey("order")
+            ? TransactionPage.Order.valueOf(params.get("order").toUpperCase(Locale.ROOT))
+            : TransactionPage.Order.DATE_ASC;
+        TransactionPage page = account.getPage(order, params.get("cursor"), limit, query);
+        sendPage(exchange, page.getItems(), page.getNextCursor());
+    }
+    
+    private static void sendPage(HttpExchange exchange, List<Transaction> items, String nextCursor) throws IOException {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < items.size(); i++) {
+            json.append(i == 0 ? "" : ",").append(toJson(items.get(i)));
+        }
+        json.append("],\"next\":").append(quote(nextCursor)).append('}');
+        sendJson(exchange, 200, json.toString());
+    }
+    
+    private void handleTotals(HttpExchange exchange, Map<String, String> params) throws IOException {
+        requireMethod(exchange, "GET");
+        LocalDate from = fromParam(params);
+        LocalDate to = toParam(params);
+        double income = reportService.getTotalIncome(from, to);
+        double expense = reportService.getTotalExpense(from, to);
+        sendJson(exchange, 200, String.format(Locale.ROOT,
+            "{\"from\":\"%s\",\"to\":\"%s\",\"income\":%.2f,\"expense\":%.2f,\"net\":%.2f}",
+            from, to, income, expense, income - expense));
+    }
+    
+    private void handleCategoryReport(HttpExchange exchange, Map<String, String> params) throws IOException {
+        requireMethod(exchange, "GET");
+        ReportSummary summary = reportService.summarize(fromParam(params), toParam(params));
+        
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.ROOT, "{\"from\":\"%s\",\"to\":\"%s\",\"totalExpense\":%.2f,\"categories\":{",
+            summary.getFrom(), summary.getTo(), summary.getTotalExpense()));
+        boolean first = true;
+        for (Map.Entry<String, Double> entry : summary.getExpenseByCategory().entrySet()) {
+            json.append(first ? "" : ",").append(quote(entry.getKey()))
+                .append(String.format(Locale.ROOT, ":%.2f", entry.getValue()));
+            first = false;
+        }
+        sendJson(exchange, 200, json.append("}}").toString());
+    }
+    
+    private void handleTopReport(HttpExchange exchange, Map<String, String> params) throws IOException {
+        requireMethod(exchange, "GET");
+        LocalDate from = fromParam(params);
+        LocalDate to = toParam(params);
+        int n = params.containsKey("n") ? Integer.parseInt(params.get("n")) : DEFAULT_TOP_N;
+        boolean income = "THU".equalsIgnoreCase(params.get("type"));
+        
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.ROOT, "{\"from\":\"%s\",\"to\":\"%s\",\"categories\":[", from, to));
+        List<Map.Entry<String, Double>> categories = reportService.getTopExpenseCategories(reportService.summarize(from, to), n);
+        for (int i = 0; i < categories.size(); i++) {
+            json.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT, "{\"category\":%s,\"amount\":%.2f}",
+                quote(categories.get(i).getKey()), categories.get(i).getValue()));
+        }
+        json.append("],\"largest\":[");
+        List<Transaction> largest = income ? reportService.getLargestIncomes(from, to, n)
+                                           : reportService.getLargestExpenses(from, to, n);
+        for (int i = 0; i < largest.size(); i++) {
+            json.append(i == 0 ? "" : ",").append(toJson(largest.get(i)));
+        }
+        sendJson(exchange, 200, json.append("]}").toString());
+    }
+    
+    private void handleExport(HttpExchange exchange, Map<String, String> params) throws IOException {
+        requireMethod(exchange, "GET");
+        LocalDate from = fromParam(params);
+        LocalDate to = toParam(params);
+        
+        // Ghi thẳng ra response (chunked) thay vì dựng cả file trong bộ nhớ;
+        // writeCSV chép từng trang khi giữ khóa đọc và ghi sau khi nhả, client chậm không chặn luồng ghi
+        exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 16)) {
+            reportService.writeCSV(from, to, writer);
+        }
+    }
+    
+    private void handleMetrics(HttpExchange exchange, Map<String, String> params) throws IOException {
+        requireMethod(exchange, "GET");
+        byte[] body = Metrics.dump().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    /**
+     * Tham số từ query string, cộng thêm body dạng form với POST
+     * Body chỉ được đọc tối đa MAX_BODY_BYTES: Content-Length lớn hơn bị từ chối trước khi đọc,
+     * body không khai báo độ dài (chunked) bị từ chối khi đọc quá giới hạn.
+     * @throws BodyTooLargeException nếu body vượt quá MAX_BODY_BYTES
+     */
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        if (exchange.getRequestMethod().equals("POST")) {
+            // HttpServer đã kiểm tra Content-Length là số hợp lệ trước khi gọi handler
+            String length = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (length != null && Long.parseLong(length.trim()) > MAX_BODY_BYTES) {
+                throw new BodyTooLargeException();
+            }
+            try (InputStream body = exchange.getRequestBody()) {
+                byte[] bytes = body.readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    throw new BodyTooLargeException();
+                }
+                parseForm(new String(bytes, StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+    
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+    
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Thiếu tham số " + name);
+        }
+        return value.trim();
+    }
+    
+    private static LocalDate fromParam(Map<String, String> params) {
+        return params.containsKey("from") ? LocalDate.parse(params.get("from")) : YearMonth.now().atDay(1);
+    }
+    
+    private static LocalDate toParam(Map<String, String> params) {
+        return params.containsKey("to") ? LocalDate.parse(params.get("to")) : YearMonth.now().atEndOfMonth();
+    }
+    
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new IllegalArgumentException("Chỉ hỗ trợ " + method);
+        }
+    }
+    
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    private static String toJson(Transaction t) {
+        return String.format(Locale.ROOT,
+            "{\"id\":%s,\"type\":\"%s\",\"date\":\"%s\",\"amount\":%.2f,\"category\":%s,\"note\":%s}",
+            quote(t.getId()), t.getType(), t.getDate(), t.getAmount(), quote(t.getCategory().getName()), quote(t.getNote()));
+    }
+    
+    private static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                sb.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                sb.append(String.format("\\u%04x", (int) ch));
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
\ No newline at end of file
@@ -1,30 +1,54 @@
 package ui;
 
+import metrics.Metrics;
 import models.*;
 import services.*;
+import java.io.File;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Giao diện console đơn giản cho ứng dụng quản lý chi tiêu
  * Sử dụng ASCII thuần để tương thích với mọi font
  */
 public class ConsoleUI {
+    // Lưu nền: gộp thay đổi, lưu mỗi 2 giây hoặc khi đủ 50 thay đổi
+    private static final long SAVE_INTERVAL_MILLIS = 2000;
+    private static final int SAVE_MAX_CHANGES = 50;
+    private static final int PAGE_SIZE = 20;             // Số giao dịch mỗi trang khi xem danh sách
+    private static final int TOP_N = 5;                  // Số dòng trong các bảng xếp hạng của báo cáo
+    private static final String METRICS_LOG = "data/metrics.log";   // File nhận bản in số đo định kỳ
+    
     private Scanner scanner;
     private Account account;
     private ReportService reportService;
     private FileManager fileManager;
     private DateTimeFormatter dateFormatter;
+    private Map<String, String> pendingBudgetAlerts;   // Cảnh báo ngân sách chờ hiển thị (theo danh mục)
     
     public ConsoleUI() {
         this.scanner = new Scanner(System.in);
         this.fileManager = new FileManager();
         this.account = fileManager.loadData();
         this.reportService = new ReportService(account);
+        fileManager.enableWriteBehind(account, SAVE_INTERVAL_MILLIS, SAVE_MAX_CHANGES,
+            WriteBehindSaver.Durability.JOURNAL);
         this.dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        this.pendingBudgetAlerts = new LinkedHashMap<>();
+        
+        // Nhận cảnh báo ngay khi giao dịch mới làm vượt ngưỡng ngân sách
+        account.getBudgetTracker().addListener(this::onBudgetThresholdCrossed);
+        
+        // Số đo xem qua JMX; in định kỳ ra file nếu chạy với -Dmetrics.dumpSeconds=N
+        Metrics.registerMBean();
+        long dumpSeconds = Long.getLong("metrics.dumpSeconds", 0);
+        if (dumpSeconds > 0) {
+            Metrics.startPeriodicDump(dumpSeconds * 1000, new File(METRICS_LOG));
+        }
     }
     
     public void start() {
@@ -105,6 +129,11 @@ public class ConsoleUI {
         }
         
         LocalDate date = getDateInput(">> Ngay (dd/MM/yyyy, Enter = hom nay): ", true);
+        if (!Account.isSupportedDate(date)) {
+            System.out.printf("[X] Ngay phai tu %s den %s!\n",
+                Account.MIN_DATE.format(dateFormatter), Account.MAX_DATE.format(dateFormatter));
+            return;
+        }
         
         System.out.print(">> Ghi chu: ");
         String note = scanner.nextLine().trim();
@@ -122,16 +151,14 @@ public class ConsoleUI {
         }
         
         account.addTransaction(transaction);
-        fileManager.saveData(account);
+        fileManager.recordAdd(account, transaction);
         
         System.out.println("\n[OK] Da them giao dich thanh cong!");
         System.out.println("---------------------------------------");
         System.out.println(transaction);
         System.out.printf("So du moi: %,.0f VND\n", account.getBalance());
         
-        if (type == 2) {
-            checkBudgetAlert(category, date);
-        }
+        printBudgetAlerts();
     }
     
     private Category selectCategory(String type) {
@@ -156,23 +183,49 @@ public class ConsoleUI {
     private void viewTransactions() {
         System.out.println("\n========== DANH SACH GIAO DICH ==========");
         
-        List<Transaction> transactions = account.getTransactions();
+        int total = account.getTransactionCount();
         
-        if (transactions.isEmpty()) {
+        if (total == 0) {
             System.out.println("\nChua co giao dich nao.");
             return;
         }
         
-        transactions.sort((t1, t2) -> t2.getDate().compareTo(t1.getDate()));
+        System.out.println("\nTong so: " + total + " giao dich");
         
-        System.out.println("\nTong so: " + transactions.size() + " giao dich");
-        System.out.println("---------------------------------------");
+        // Mới nhất trước, lấy từng trang thay vì sao chép và sắp xếp cả danh sách
+        showPages(cursor -> account.getPage(TransactionPage.Order.DATE_DESC, cursor, PAGE_SIZE));
+    }
+    
+    /**
+     * In lần lượt từng trang, hỏi người dùng trước khi lấy trang tiếp theo
+     * @return số giao dịch đã in
+     */
+    private int showPages(Function<String, TransactionPage> fetchPage) {
+        String cursor = null;
+        int shown = 0;
         
-        for (Transaction t : transactions) {
-            System.out.println(t);
+        while (true) {
+            TransactionPage page = fetchPage.apply(cursor);
+            if (page.isEmpty()) {
+                return shown;
+            }
+            
+            System.out.println("---------------------------------------");
+            for (Transaction t : page.getItems()) {
+                System.out.println(t);
+            }
+            shown += page.getItems().size();
+            System.out.println("---------------------------------------");
+            
+            if (!page.hasMore()) {
+                return shown;
+            }
+            System.out.print("Da hien thi " + shown + " giao dich. Enter: trang tiep, 0: dung lai: ");
+            if (scanner.nextLine().trim().equals("0")) {
+                return shown;
+            }
+            cursor = page.getNextCursor();
         }
-        
-        System.out.println("---------------------------------------");
     }
     
     private void viewReport() {
@@ -210,8 +263,11 @@ public class ConsoleUI {
                 return;
         }
         
+        // ReportService lưu đệm theo version của Account: xem lại khi chưa có thay đổi thì không tính lại
         System.out.println(reportService.generateSummaryReport(from, to));
         System.out.println(reportService.generateCategoryReport(from, to));
+        System.out.println(reportService.generateTopExpenseCategories(from, to, TOP_N));
+        System.out.println(reportService.generateLargestExpenses(from, to, TOP_N));
         
         List<String> warnings = reportService.checkBudgetWarnings(from, to);
         if (!warnings.isEmpty()) {
@@ -229,32 +285,53 @@ public class ConsoleUI {
         System.out.println("  1. Theo danh muc");
         System.out.println("  2. Theo khoang thoi gian");
         System.out.println("  3. Theo loai (Thu/Chi)");
+        System.out.println("  4. Theo ghi chu (vd: grab, tien an, ca*, grab OR be)");
+        System.out.println("  5. Ket hop nhieu dieu kien");
         
         int choice = getIntInput(">> Chon: ");
-        List<Transaction> results = new ArrayList<>();
+        TransactionQuery query = new TransactionQuery();
+        TransactionPage.Order order = TransactionPage.Order.DATE_DESC;
+        Function<String, TransactionPage> search = null;
         
         switch (choice) {
             case 1:
                 System.out.print(">> Ten danh muc: ");
-                String catName = scanner.nextLine().trim();
-                results = account.getTransactionsByCategory(catName);
+                query.category(scanner.nextLine().trim());
                 break;
                 
             case 2:
                 LocalDate from = getDateInput(">> Tu ngay (dd/MM/yyyy): ", false);
                 LocalDate to = getDateInput(">> Den ngay (dd/MM/yyyy): ", false);
-                results = account.getTransactionsByDateRange(from, to);
+                query.between(from, to);
+                order = TransactionPage.Order.DATE_ASC;
                 break;
                 
             case 3:
                 System.out.println("  1. Thu nhap");
                 System.out.println("  2. Chi tieu");
                 int type = getIntInput(">> Chon: ");
-                if (type == 1) {
-                    results = account.getIncomeTransactions();
-                } else if (type == 2) {
-                    results = account.getExpenseTransactions();
+                if (type != 1 && type != 2) {
+                    System.out.println("[X] Lua chon khong hop le!");
+                    return;
+                }
+                query.type(type == 1 ? "THU" : "CHI");
+                break;
+                
+            case 4:
+                System.out.print(">> Tu khoa: ");
+                String keywords = scanner.nextLine().trim();
+                System.out.println("Tim thay " + account.countNoteMatches(keywords) + " giao dich (moi nhat truoc)");
+                search = cursor -> account.searchNotes(keywords, cursor, PAGE_SIZE);
+                break;
+                
+            case 5:
+                try {
+                    readCombinedQuery(query);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    System.out.println("[X] Gia tri khong hop le: " + e.getMessage());
+                    return;
                 }
+                System.out.println("Tim thay " + account.count(query) + " giao dich");
                 break;
                 
             default:
@@ -262,15 +339,59 @@ public class ConsoleUI {
                 return;
         }
         
-        if (results.isEmpty()) {
+        if (search == null) {
+            TransactionPage.Order pageOrder = order;
+            search = cursor -> account.getPage(pageOrder, cursor, PAGE_SIZE, query);
+        }
+        
+        // In từng trang ngay khi tìm đủ, không dựng cả danh sách kết quả
+        int shown = showPages(search);
+        if (shown == 0) {
             System.out.println("\nKhong tim thay giao dich nao.");
         } else {
-            System.out.println("\n[OK] Tim thay " + results.size() + " giao dich:");
-            System.out.println("---------------------------------------");
-            for (Transaction t : results) {
-                System.out.println(t);
+            System.out.println("[OK] Da hien thi " + shown + " giao dich.");
+        }
+    }
+    
+    /**
+     * Hỏi từng điều kiện của tìm kiếm kết hợp, bỏ trống là không lọc theo điều kiện đó
+     */
+    private void readCombinedQuery(TransactionQuery query) {
+        String type = readOptional(">> Loai (THU/CHI, bo trong = tat ca): ");
+        if (type != null) {
+            query.type(type.toUpperCase());
+        }
+        
+        String categories = readOptional(">> Danh muc (cach nhau boi dau phay): ");
+        if (categories != null) {
+            for (String name : categories.split(",")) {
+                query.category(name.trim());
             }
         }
+        
+        String from = readOptional(">> Tu ngay (dd/MM/yyyy): ");
+        String to = readOptional(">> Den ngay (dd/MM/yyyy): ");
+        if (from != null || to != null) {
+            query.between(from == null ? null : LocalDate.parse(from, dateFormatter),
+                to == null ? null : LocalDate.parse(to, dateFormatter));
+        }
+        
+        String min = readOptional(">> So tien tu: ");
+        if (min != null) {
+            query.minAmount(Double.parseDouble(min));
+        }
+        String max = readOptional(">> So tien den: ");
+        if (max != null) {
+            query.maxAmount(Double.parseDouble(max));
+        }
+        
+        query.note(readOptional(">> Tu khoa ghi chu: "));
+    }
+    
+    private String readOptional(String prompt) {
+        System.out.print(prompt);
+        String input = scanner.nextLine().trim();
+        return input.isEmpty() ? null : input;
     }
     
     private void deleteTransaction() {
@@ -296,7 +417,7 @@ public class ConsoleUI {
         
         if (confirm.equals("y") || confirm.equals("yes")) {
             account.removeTransaction(id);
-            fileManager.saveData(account);
+            fileManager.recordRemove(account, id);
             System.out.println("[OK] Da xoa giao dich thanh cong!");
             System.out.printf("So du moi: %,.0f VND\n", account.getBalance());
         } else {
@@ -310,10 +431,9 @@ public class ConsoleUI {
         LocalDate from = getDateInput(">> Tu ngay (dd/MM/yyyy): ", false);
         LocalDate to = getDateInput(">> Den ngay (dd/MM/yyyy): ", false);
         
-        String csv = reportService.exportToCSV(from, to);
         String fileName = "report_" + LocalDate.now() + ".csv";
         
-        fileManager.exportCSV(csv, fileName);
+        fileManager.exportCSV(reportService, from, to, fileName);
         
         System.out.println("File da duoc luu tai: exports/" + fileName);
     }
@@ -351,40 +471,38 @@ public class ConsoleUI {
             return;
         }
         
-        category.setBudget(newBudget);
-        fileManager.saveData(account);
+        account.setBudget(category, newBudget);
+        fileManager.recordBudget(account, category);
         System.out.println("[OK] Da cap nhat ngan sach thanh cong!");
     }
     
-    private void checkBudgetAlert(Category category, LocalDate date) {
-        if (!category.hasBudget()) {
-            return;
-        }
-        
-        YearMonth month = YearMonth.from(date);
-        LocalDate from = month.atDay(1);
-        LocalDate to = month.atEndOfMonth();
-        
-        double spent = account.getTransactionsByDateRange(from, to).stream()
-            .filter(t -> t instanceof Expense)
-            .filter(t -> t.getCategory().equals(category))
-            .mapToDouble(Transaction::getAmount)
-            .sum();
-        
+    private void onBudgetThresholdCrossed(Category category, YearMonth month, double spent, int threshold) {
         double percentage = (spent / category.getBudget()) * 100;
         
-        if (percentage > 100) {
-            System.out.printf("\n[!] CANH BAO: Danh muc '%s' da vuot %.0f%% ngan sach!\n", 
-                category.getName(), percentage - 100);
-        } else if (percentage > 80) {
-            System.out.printf("\n[!] CHU Y: Danh muc '%s' da dung %.0f%% ngan sach.\n", 
-                category.getName(), percentage);
+        // Ngưỡng cao hơn ghi đè ngưỡng thấp hơn nếu một giao dịch vượt cả hai
+        if (threshold >= 100) {
+            pendingBudgetAlerts.put(category.getName(), String.format(
+                "\n[!] CANH BAO: Danh muc '%s' da vuot %.0f%% ngan sach thang %s!",
+                category.getName(), percentage - 100, month));
+        } else {
+            pendingBudgetAlerts.put(category.getName(), String.format(
+                "\n[!] CHU Y: Danh muc '%s' da dung %.0f%% ngan sach thang %s.",
+                category.getName(), percentage, month));
+        }
+    }
+    
+    private void printBudgetAlerts() {
+        for (String alert : pendingBudgetAlerts.values()) {
+            System.out.println(alert);
         }
+        pendingBudgetAlerts.clear();
     }
     
     private void exitApp() {
         System.out.println("Dang luu du lieu...");
-        fileManager.saveData(account);
+        fileManager.flush();
+        fileManager.close();
+        Metrics.stopPeriodicDump();
         System.out.println("\nCam on ban da su dung! Hen gap lai!");
     }
     
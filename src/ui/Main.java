@@ -1,5 +1,7 @@
 package ui;
 
+import java.io.IOException;
+
 /**
  * Class chính để khởi động ứng dụng
  * Quản lý chi tiêu cá nhân - Personal Finance Manager
@@ -11,10 +13,35 @@ public class Main {
     
     /**
      * Phương thức main - điểm bắt đầu của chương trình
+     * Chạy với tham số --server [port] để mở HTTP API thay cho giao diện console
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? parsePort(args[1]) : ApiServer.DEFAULT_PORT;
+            if (port < 0) {
+                System.err.println("✗ Cổng không hợp lệ: " + args[1] + " (cần số từ 1 đến 65535)");
+                return;
+            }
+            ApiServer server = new ApiServer(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+            return;
+        }
+        
         // Khởi tạo và chạy giao diện console
         ConsoleUI ui = new ConsoleUI();
         ui.start();
     }
+    
+    /**
+     * @return số cổng, hoặc -1 nếu không phải số trong khoảng 1..65535
+     */
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text.trim());
+            return port >= 1 && port <= 65535 ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
\ No newline at end of file
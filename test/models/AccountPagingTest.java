@@ -0,0 +1,188 @@
+package models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Kiểm tra phân trang bằng cursor của Account.getPage: đúng thứ tự sắp xếp theo cả 4 chiều,
+ * không lặp / sót giao dịch khi thêm và xóa giữa hai trang
+ */
+class AccountPagingTest {
+    private static final LocalDate FIRST = LocalDate.of(2024, 1, 1);
+    
+    @Test
+    void pagesFollowSortOrderInEveryDirection() {
+        Account account = buildAccount(2000, 90, 1);
+        for (TransactionPage.Order order : TransactionPage.Order.values()) {
+            List<String> expected = sortedIds(account, order, null, null);
+            assertEquals(expected, readAllPages(account, order, 37, null, null), order.name());
+        }
+    }
+    
+    @Test
+    void pagesRespectDateRange() {
+        Account account = buildAccount(2000, 90, 2);
+        LocalDate from = FIRST.plusDays(10);
+        LocalDate to = FIRST.plusDays(40);
+        for (TransactionPage.Order order : TransactionPage.Order.values()) {
+            List<String> expected = sortedIds(account, order, from, to);
+            assertEquals(expected, readAllPages(account, order, 50, from, to), order.name());
+        }
+    }
+    
+    @Test
+    void descendingCursorContinuesStrictlyBelowLastItem() {
+        Account account = buildAccount(500, 20, 3);
+        for (TransactionPage.Order order : List.of(TransactionPage.Order.DATE_DESC, TransactionPage.Order.ID_DESC)) {
+            Comparator<Transaction> comparator = comparator(order);
+            TransactionPage first = account.getPage(order, null, 25);
+            TransactionPage second = account.getPage(order, first.getNextCursor(), 25);
+            
+            assertEquals(25, first.getItems().size());
+            assertEquals(25, second.getItems().size());
+            Transaction lastOfFirst = first.getItems().get(24);
+            Transaction firstOfSecond = second.getItems().get(0);
+            assertTrue(comparator.compare(lastOfFirst, firstOfSecond) < 0, order.name());
+            
+            // Trang đầu của DESC là giao dịch lớn nhất theo khóa sắp xếp
+            assertEquals(sortedIds(account, order, null, null).get(0), first.getItems().get(0).getId());
+        }
+    }
+    
+    @Test
+    void lastPageHasNoCursor() {
+        Account account = buildAccount(100, 10, 4);
+        TransactionPage page = account.getPage(TransactionPage.Order.DATE_DESC, null, 100);
+        assertEquals(100, page.getItems().size());
+        assertNull(page.getNextCursor());
+        assertFalse(page.hasMore());
+    }
+    
+    @Test
+    void cursorFromAnotherOrderIsRejected() {
+        Account account = buildAccount(100, 10, 5);
+        String cursor = account.getPage(TransactionPage.Order.DATE_ASC, null, 10).getNextCursor();
+        assertThrows(IllegalArgumentException.class,
+            () -> account.getPage(TransactionPage.Order.DATE_DESC, cursor, 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> account.getPage(TransactionPage.Order.ID_ASC, "khong-phai-cursor", 10));
+    }
+    
+    @Test
+    void pagingStaysStableWhileRowsAreAddedAndDeleted() {
+        for (TransactionPage.Order order : TransactionPage.Order.values()) {
+            Account account = buildAccount(1500, 60, 6);
+            Random random = new Random(order.ordinal());
+            Comparator<Transaction> comparator = comparator(order);
+            Category category = account.getCategoryByName("Ăn uống");
+            
+            Set<String> original = new HashSet<>(sortedIds(account, order, null, null));
+            Set<String> deleted = new HashSet<>();
+            Set<String> seen = new HashSet<>();
+            Transaction previous = null;
+            String cursor = null;
+            
+            do {
+                TransactionPage page = account.getPage(order, cursor, 40);
+                for (Transaction t : page.getItems()) {
+                    assertTrue(seen.add(t.getId()), "Lặp giao dịch " + t.getId());
+                    assertFalse(deleted.contains(t.getId()), "Trả về giao dịch đã xóa " + t.getId());
+                    if (previous != null) {
+                        assertTrue(comparator.compare(previous, t) < 0, "Sai thứ tự tại " + t.getId());
+                    }
+                    previous = t;
+                }
+                cursor = page.getNextCursor();
+                
+                // Xóa cả dòng đã đọc lẫn chưa đọc (removeSwap dời dòng cuối bảng vào chỗ trống)
+                List<String> live = new ArrayList<>(original);
+                live.removeAll(deleted);
+                for (int i = 0; i < 5 && !live.isEmpty(); i++) {
+                    String id = live.remove(random.nextInt(live.size()));
+                    assertTrue(account.removeTransaction(id));
+                    deleted.add(id);
+                }
+                for (int i = 0; i < 5; i++) {
+                    account.addTransaction(new Expense(account.generateTransactionId(),
+                        FIRST.plusDays(random.nextInt(60)), 1000, category, "moi"));
+                }
+            } while (cursor != null);
+            
+            // Mọi giao dịch có từ đầu và chưa bị xóa đều được đọc đúng một lần
+            for (String id : original) {
+                if (!deleted.contains(id)) {
+                    assertTrue(seen.contains(id), order + ": sót " + id);
+                }
+            }
+        }
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    /**
+     * Tài khoản có size giao dịch rải ngẫu nhiên (cố định theo seed) trên days ngày, nhiều giao dịch cùng ngày
+     */
+    static Account buildAccount(int size, int days, long seed) {
+        Account account = new Account("test", 0);
+        Random random = new Random(seed);
+        List<Category> categories = account.getCategories();
+        for (int i = 0; i < size; i++) {
+            Category category = categories.get(random.nextInt(categories.size()));
+            LocalDate date = FIRST.plusDays(random.nextInt(days));
+            double amount = 1000 + random.nextInt(100) * 1000;
+            String id = account.generateTransactionId();
+            account.addTransaction(category.getType().equals("THU")
+                ? new Income(id, date, amount, category, "thu " + i)
+                : new Expense(id, date, amount, category, "chi " + i));
+        }
+        return account;
+    }
+    
+    /**
+     * Thứ tự mong đợi: theo (ngày, ID) hoặc ID, đảo ngược với DESC
+     */
+    static Comparator<Transaction> comparator(TransactionPage.Order order) {
+        Comparator<Transaction> byId = Comparator.comparing(Transaction::getId, Account.ID_ORDER);
+        Comparator<Transaction> byDate = Comparator.comparing(Transaction::getDate).thenComparing(byId);
+        switch (order) {
+            case DATE_ASC:
+                return byDate;
+            case DATE_DESC:
+                return byDate.reversed();
+            case ID_ASC:
+                return byId;
+            default:
+                return byId.reversed();
+        }
+    }
+    
+    private static List<String> sortedIds(Account account, TransactionPage.Order order, LocalDate from, LocalDate to) {
+        List<Transaction> all = new ArrayList<>();
+        TransactionTable table = account.getTable();
+        for (int row = 0; row < table.size(); row++) {
+            Transaction t = table.get(row);
+            if ((from == null || !t.getDate().isBefore(from)) && (to == null || !t.getDate().isAfter(to))) {
+                all.add(t);
+            }
+        }
+        all.sort(comparator(order));
+        List<String> ids = new ArrayList<>();
+        all.forEach(t -> ids.add(t.getId()));
+        return ids;
+    }
+    
+    private static List<String> readAllPages(Account account, TransactionPage.Order order, int pageSize,
+                                             LocalDate from, LocalDate to) {
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPage page = account.getPage(order, cursor, pageSize, from, to, null);
+            assertTrue(page.getItems().size() <= pageSize);
+            page.getItems().forEach(t -> ids.add(t.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+package models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Kiểm tra chỉ mục ghi chú: bỏ dấu, tiền tố, OR, giao galloping và đánh số lại seq,
+ * so với cách duyệt ghi chú của mọi dòng
+ */
+class NoteIndexTest {
+    
+    @Test
+    void tokenizeFoldsDiacriticsAndCase() {
+        assertEquals(List.of("tien", "an", "dem"), NoteIndex.tokenize("Tiền ĂN đêm"));
+        assertEquals(List.of("grab", "food", "thang10"), NoteIndex.tokenize("  Grab-Food, tháng10 "));
+        assertTrue(NoteIndex.tokenize(null).isEmpty());
+    }
+    
+    @Test
+    void parseQuerySplitsOrGroupsAndKeepsPrefix() {
+        assertEquals(List.of(List.of("tien", "an"), List.of("grab")), NoteIndex.parseQuery("Tiền ăn OR grab"));
+        assertEquals(List.of(List.of("grab"), List.of("be")), NoteIndex.parseQuery("grab | be"));
+        assertEquals(List.of(List.of("grab", "food*")), NoteIndex.parseQuery("grab-food*"));
+    }
+    
+    @Test
+    void prefixAndOrQueriesMatchBruteForce() {
+        List<String> notes = List.of("grab di lam", "gra ve nha", "be di cho", "Grabfood trua",
+            "tien an trua", "tien dien", "an sang", "grab", "xang xe", "be ve nha");
+        NoteIndex index = new NoteIndex();
+        for (int row = 0; row < notes.size(); row++) {
+            index.add(row, notes.get(row));
+        }
+        
+        for (String query : List.of("gra*", "grab", "grab OR be", "be | xang", "tien an OR an sang",
+                                    "gra* ve", "tie* trua OR xang", "khong co", "ve* OR be* OR x*")) {
+            assertEquals(bruteForce(notes, query), rows(index, query), query);
+        }
+    }
+    
+    @Test
+    void shortPrefixMergesManyTerms() {
+        // "a*" khớp hàng trăm từ khác nhau, mỗi từ ở vài dòng rải rác
+        List<String> notes = new ArrayList<>();
+        Random random = new Random(3);
+        for (int row = 0; row < 3000; row++) {
+            notes.add("a" + random.nextInt(500) + " b" + random.nextInt(500) + " a" + random.nextInt(500));
+        }
+        NoteIndex index = new NoteIndex();
+        for (int row = 0; row < notes.size(); row++) {
+            index.add(row, notes.get(row));
+        }
+        
+        for (String query : List.of("a*", "a1*", "a1* b2*", "a4* OR b4*")) {
+            assertEquals(bruteForce(notes, query), rows(index, query), query);
+        }
+    }
+    
+    @Test
+    void gallopingIntersectMatchesMergeResult() {
+        // "pho" chỉ có ở ~10 dòng, "chung" ở ~2000 dòng: chênh hơn SKIP_RATIO lần nên giao bằng galloping
+        List<String> notes = new ArrayList<>();
+        Set<Integer> rare = Set.of(0, 1, 7, 500, 1000, 1501, 2000, 2997, 2998, 2999);
+        for (int row = 0; row < 3000; row++) {
+            StringBuilder note = new StringBuilder("dong" + row);
+            if (row % 3 != 1) {
+                note.append(" chung");
+            }
+            if (rare.contains(row)) {
+                note.append(" pho");
+            }
+            notes.add(note.toString());
+        }
+        NoteIndex index = new NoteIndex();
+        for (int row = 0; row < notes.size(); row++) {
+            index.add(row, notes.get(row));
+        }
+        
+        List<Integer> expected = bruteForce(notes, "pho chung");
+        assertEquals(List.of(0, 500, 2000, 2997, 2999), expected);
+        assertEquals(expected, rows(index, "pho chung"));
+        assertEquals(expected, rows(index, "chung pho"));
+        assertEquals(bruteForce(notes, "pho chung OR dong1"), rows(index, "pho chung OR dong1"));
+    }
+    
+    @Test
+    void compactionKeepsMatchesCorrect() {
+        NoteIndex index = new NoteIndex();
+        List<String> notes = new ArrayList<>();
+        Random random = new Random(7);
+        String[] words = {"grab", "be", "tien", "an", "trua", "xang", "dien"};
+        
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1000; i++) {
+                String note = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                index.add(notes.size(), note);
+                notes.add(note);
+            }
+            // Xóa như Account: dòng cuối bảng dời vào chỗ trống, rồi thử đánh số lại
+            for (int i = 0; i < 900; i++) {
+                int row = random.nextInt(notes.size());
+                int last = notes.size() - 1;
+                index.remove(row);
+                if (row != last) {
+                    index.move(last, row);
+                    notes.set(row, notes.get(last));
+                }
+                notes.remove(last);
+                index.compactIfSparse();
+            }
+            
+            for (String query : List.of("grab", "tien an", "gra* OR xang", "be | dien trua")) {
+                // Dòng đã bị dời nên thứ tự seq khác thứ tự dòng: so như tập hợp
+                List<Integer> actual = rows(index, query);
+                Collections.sort(actual);
+                assertEquals(bruteForce(notes, query), actual, "vòng " + round + ": " + query);
+            }
+        }
+        
+        // Sau khi đánh số lại, seq vẫn tăng theo thứ tự thêm: dòng cuối bảng giữ seq lớn nhất
+        index.add(notes.size(), "moi nhat");
+        notes.add("moi nhat");
+        assertEquals(notes.size() - 1, index.rowOf(index.match("moi").get(0)));
+        assertTrue(index.seqOf(notes.size() - 1) < 2 * notes.size());
+    }
+    
+    @Test
+    void searchNotesPagesNewestFirst() {
+        Account account = new Account("test", 0);
+        Category category = account.getCategoryByName("Ăn uống");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            String id = account.generateTransactionId();
+            String note = i % 2 == 0 ? "Tiền ăn " + i : "xăng " + i;
+            account.addTransaction(new Expense(id, LocalDate.of(2024, 1, 1 + i % 28), 1000, category, note));
+            if (i % 2 == 0) {
+                expected.add(0, id);
+            }
+        }
+        // Xóa vài giao dịch để bảng dời dòng
+        for (int i = 0; i < 250; i += 10) {
+            String id = account.getTable().getId(i % account.getTable().size());
+            account.removeTransaction(id);
+            expected.remove(id);
+        }
+        
+        assertEquals(expected.size(), account.countNoteMatches("tien AN"));
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPage page = account.searchNotes("tien AN", cursor, 17);
+            page.getItems().forEach(t -> seen.add(t.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(expected, seen);
+    }
+    
+    @Test
+    void searchNotesCursorSurvivesCompaction() {
+        Account account = new Account("test", 0);
+        Category category = account.getCategoryByName("Ăn uống");
+        List<String> grab = new ArrayList<>();
+        List<String> others = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String id = account.generateTransactionId();
+            boolean isGrab = i % 3 == 0;
+            account.addTransaction(new Expense(id, LocalDate.of(2024, 1, 1 + i % 28), 1000, category,
+                isGrab ? "grab " + i : "khac " + i));
+            (isGrab ? grab : others).add(0, id);
+        }
+        
+        TransactionPage first = account.searchNotes("grab", null, 10);
+        assertEquals(grab.subList(0, 10), ids(first));
+        
+        // Xóa nhiều hơn COMPACT_MIN_DEAD dòng (cả dòng "grab" chưa đọc) để chỉ mục đánh số lại seq
+        Set<String> deleted = new HashSet<>(others.subList(0, NoteIndex.COMPACT_MIN_DEAD + 500));
+        for (int i = 20; i < 120; i++) {
+            deleted.add(grab.get(i));
+        }
+        deleted.forEach(account::removeTransaction);
+        
+        List<String> seen = new ArrayList<>(ids(first));
+        String cursor = first.getNextCursor();
+        while (cursor != null) {
+            TransactionPage page = account.searchNotes("grab", cursor, 37);
+            seen.addAll(ids(page));
+            cursor = page.getNextCursor();
+        }
+        
+        List<String> expected = new ArrayList<>(grab);
+        expected.removeAll(deleted);
+        assertEquals(expected, seen);
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    private static List<String> ids(TransactionPage page) {
+        List<String> ids = new ArrayList<>();
+        page.getItems().forEach(t -> ids.add(t.getId()));
+        return ids;
+    }
+    
+    /**
+     * Các dòng khớp truy vấn theo thứ tự seq của chỉ mục (seq phải tăng dần)
+     */
+    private static List<Integer> rows(NoteIndex index, String query) {
+        IntList seqs = index.match(query);
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < seqs.size(); i++) {
+            assertTrue(i == 0 || seqs.get(i - 1) < seqs.get(i), "seq không tăng dần: " + query);
+            rows.add(index.rowOf(seqs.get(i)));
+        }
+        return rows;
+    }
+    
+    /**
+     * Duyệt ghi chú của mọi dòng, trả về các dòng khớp tăng dần
+     */
+    private static List<Integer> bruteForce(List<String> notes, String query) {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 0; row < notes.size(); row++) {
+            List<String> terms = NoteIndex.tokenize(notes.get(row));
+            for (List<String> group : NoteIndex.parseQuery(query)) {
+                if (group.stream().allMatch(term -> term.endsWith("*")
+                    ? terms.stream().anyMatch(t -> t.startsWith(term.substring(0, term.length() - 1)))
+                    : terms.contains(term))) {
+                    rows.add(row);
+                    break;
+                }
+            }
+        }
+        return rows;
+    }
+}
\ No newline at end of file
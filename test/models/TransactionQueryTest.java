@@ -0,0 +1,117 @@
+package models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Kiểm tra planner của truy vấn kết hợp: explain() chọn đúng chỉ mục, và getPage cho cùng thứ tự
+ * dù lấy hết rồi sắp xếp (ít ứng viên) hay duyệt chỉ mục ngày / ID (nhiều hơn SORTED_PAGE_LIMIT)
+ */
+class TransactionQueryTest {
+    private static final LocalDate FIRST = LocalDate.of(2024, 1, 1);
+    
+    private static Account account;
+    
+    @BeforeAll
+    static void buildAccount() {
+        account = AccountPagingTest.buildAccount(Account.SORTED_PAGE_LIMIT + 2000, 120, 11);
+    }
+    
+    @Test
+    void explainPicksNarrowestIndex() {
+        assertEquals(TransactionQuery.Plan.NOTE_INDEX,
+            account.explain(new TransactionQuery().note("chi 123")));
+        assertEquals(TransactionQuery.Plan.DATE_INDEX,
+            account.explain(new TransactionQuery().between(FIRST.plusDays(5), FIRST.plusDays(6))));
+        assertEquals(TransactionQuery.Plan.FULL_SCAN,
+            account.explain(new TransactionQuery().type("CHI").amountBetween(20000, 50000)));
+        
+        // Từ khóa có ở mọi dòng: một ngày ít ứng viên hơn
+        assertEquals(TransactionQuery.Plan.DATE_INDEX,
+            account.explain(new TransactionQuery().note("chi OR thu").between(FIRST, FIRST)));
+        // Từ khóa không khớp dòng nào: 0 ứng viên qua chỉ mục ghi chú
+        assertEquals(TransactionQuery.Plan.NOTE_INDEX,
+            account.explain(new TransactionQuery().note("khong co")));
+    }
+    
+    @Test
+    void pagesMatchBruteForceAboveSortedPageLimit() {
+        // Nhiều ứng viên hơn SORTED_PAGE_LIMIT: duyệt chỉ mục ngày / ID theo thứ tự
+        assertTrue(account.getTransactionCount() > Account.SORTED_PAGE_LIMIT);
+        checkAllOrders(new TransactionQuery().type("CHI"),
+            t -> t.getType().equals("CHI"));
+        checkAllOrders(new TransactionQuery().amountBetween(20000, 50000),
+            t -> t.getAmount() >= 20000 && t.getAmount() <= 50000);
+        checkAllOrders(new TransactionQuery().between(FIRST, FIRST.plusDays(200)).category("Ăn uống", "Lương"),
+            t -> t.getCategory().getName().equals("Ăn uống") || t.getCategory().getName().equals("Lương"));
+    }
+    
+    @Test
+    void pagesMatchBruteForceBelowSortedPageLimit() {
+        // Ít ứng viên: lấy hết các dòng khớp rồi sắp xếp
+        LocalDate from = FIRST.plusDays(30);
+        LocalDate to = FIRST.plusDays(40);
+        checkAllOrders(new TransactionQuery().between(from, to),
+            t -> !t.getDate().isBefore(from) && !t.getDate().isAfter(to));
+        checkAllOrders(new TransactionQuery().note("chi 12*"),
+            t -> t.getNote().startsWith("chi 12"));
+        checkAllOrders(new TransactionQuery().note("thu 1* OR chi 2*").type("THU"),
+            t -> t.getNote().startsWith("thu 1"));
+    }
+    
+    @Test
+    void countAndFindMatchBruteForce() {
+        List<TransactionQuery> queries = List.of(
+            new TransactionQuery().type("THU"),
+            new TransactionQuery().note("chi 1*").amountBetween(10000, 60000),
+            new TransactionQuery().between(FIRST.plusDays(10), FIRST.plusDays(12)).type("CHI"));
+        List<Predicate<Transaction>> filters = List.of(
+            t -> t.getType().equals("THU"),
+            t -> t.getNote().startsWith("chi 1") && t.getAmount() >= 10000 && t.getAmount() <= 60000,
+            t -> t.getType().equals("CHI") && !t.getDate().isBefore(FIRST.plusDays(10))
+                && !t.getDate().isAfter(FIRST.plusDays(12)));
+        
+        for (int i = 0; i < queries.size(); i++) {
+            Set<String> expected = new HashSet<>(bruteForce(filters.get(i), TransactionPage.Order.ID_ASC));
+            Set<String> found = new HashSet<>();
+            account.find(queries.get(i)).forEach(t -> found.add(t.getId()));
+            assertEquals(expected.size(), account.count(queries.get(i)), queries.get(i).toString());
+            assertEquals(expected, found, queries.get(i).toString());
+        }
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    /**
+     * Đọc hết các trang theo cả 4 thứ tự và so với sắp xếp toàn bộ các giao dịch khớp
+     */
+    private static void checkAllOrders(TransactionQuery query, Predicate<Transaction> filter) {
+        for (TransactionPage.Order order : TransactionPage.Order.values()) {
+            List<String> ids = new ArrayList<>();
+            String cursor = null;
+            do {
+                TransactionPage page = account.getPage(order, cursor, 97, query);
+                page.getItems().forEach(t -> ids.add(t.getId()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            assertEquals(bruteForce(filter, order), ids, order + " " + query);
+        }
+    }
+    
+    private static List<String> bruteForce(Predicate<Transaction> filter, TransactionPage.Order order) {
+        List<Transaction> matches = new ArrayList<>();
+        account.forEachTransaction(t -> {
+            if (filter.test(t)) {
+                matches.add(t);
+            }
+        });
+        matches.sort(AccountPagingTest.comparator(order));
+        List<String> ids = new ArrayList<>();
+        matches.forEach(t -> ids.add(t.getId()));
+        return ids;
+    }
+}
\ No newline at end of file
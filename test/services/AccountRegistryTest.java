@@ -0,0 +1,58 @@
+package services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import models.*;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Kiểm tra registry: chỉ ghi lại tài khoản đã đổi khi bị loại và không in thông báo ra console
+ */
+class AccountRegistryTest {
+    @TempDir
+    Path dir;
+    
+    @Test
+    void evictionSavesOnlyChangedAccounts() {
+        AccountRegistry registry = new AccountRegistry(dir.toString(), 1);
+        
+        // "a" không đổi: bị loại mà không ghi file nào
+        registry.getAccount("a");
+        registry.getAccount("b");
+        assertEquals(1, registry.getEvictionCount());
+        assertFalse(Files.exists(dir.resolve("a").resolve("account.txt")));
+        
+        // "b" có giao dịch mới: được ghi lại trước khi bỏ và đọc lại đủ
+        Account b = registry.getAccount("b");
+        b.addTransaction(new Income("T0001", LocalDate.of(2024, 3, 1), 50000,
+            b.getCategoryByName("Lương"), "lương"));
+        registry.getAccount("a");
+        assertEquals(2, registry.getEvictionCount());
+        assertTrue(Files.exists(dir.resolve("b").resolve("account.txt")));
+        assertEquals(1, registry.getAccount("b").getTransactionCount());
+    }
+    
+    @Test
+    void registryDoesNotPrintSuccessMessages() {
+        PrintStream out = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        try {
+            AccountRegistry registry = new AccountRegistry(dir.toString(), 1);
+            Account a = registry.getAccount("a");
+            a.addCategory(new Category("Thú cưng", "CHI"));
+            registry.getAccount("b");
+            registry.getAccount("a");
+            assertTrue(registry.flushAll());
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals("", captured.toString());
+    }
+}
\ No newline at end of file
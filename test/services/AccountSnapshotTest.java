@@ -0,0 +1,85 @@
+package services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import models.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Kiểm tra ảnh chụp nhị phân: đọc thẳng vào các cột và chuỗi dài hơn 65535 byte không bị hỏng
+ */
+class AccountSnapshotTest {
+    @TempDir
+    Path dir;
+    
+    @Test
+    void readRestoresTableAndIndexes() throws IOException {
+        Account original = new Account("snapshot", 750000);
+        Category custom = new Category("Thú cưng", "CHI", 300000);
+        original.addCategory(custom);
+        List<Category> categories = original.getCategories();
+        Random random = new Random(7);
+        for (int i = 0; i < 1500; i++) {
+            Category category = categories.get(random.nextInt(categories.size()));
+            LocalDate date = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(120));
+            String id = original.generateTransactionId();
+            original.addTransaction(category.getType().equals("THU")
+                ? new Income(id, date, 1000 + i, category, "Ghi chú " + i)
+                : new Expense(id, date, 1000 + i, category, "Ghi chú " + i));
+        }
+        
+        Account loaded = writeAndRead(original);
+        
+        assertEquals(original.getName(), loaded.getName());
+        assertEquals(original.getBalance(), loaded.getBalance(), 0.001);
+        assertEquals(original.getTransactionCount(), loaded.getTransactionCount());
+        assertEquals(fileStrings(original), fileStrings(loaded));
+        assertEquals(300000, loaded.getCategoryByName("Thú cưng").getBudget(), 0.001);
+        
+        LocalDate from = LocalDate.of(2024, 2, 1);
+        LocalDate to = LocalDate.of(2024, 3, 31);
+        assertEquals(original.getExpenseTotal(from, to), loaded.getExpenseTotal(from, to), 0.001);
+        assertEquals(original.getBudgetTracker().getSpent("Thú cưng", YearMonth.of(2024, 2)),
+            loaded.getBudgetTracker().getSpent("Thú cưng", YearMonth.of(2024, 2)), 0.001);
+        assertEquals("T1501", loaded.generateTransactionId());
+        assertEquals("T0042", loaded.findTransactionById("T0042").getId());
+    }
+    
+    @Test
+    void longStringsSurviveRoundTrip() throws IOException {
+        Account original = new Account("x".repeat(70000), 0);
+        String note = "ghi chú dài ".repeat(7000);
+        Category category = original.getCategoryByName("Ăn uống");
+        original.addTransaction(new Expense("T0001", LocalDate.of(2024, 5, 1), 5000, category, note));
+        
+        Account loaded = writeAndRead(original);
+        
+        assertEquals(original.getName(), loaded.getName());
+        assertEquals(note, loaded.findTransactionById("T0001").getNote());
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    private Account writeAndRead(Account account) throws IOException {
+        File file = dir.resolve("snapshot.bin").toFile();
+        long stamp = account.beginRead();
+        try {
+            AccountSnapshot.write(account, file);
+        } finally {
+            account.endRead(stamp);
+        }
+        return AccountSnapshot.read(file);
+    }
+    
+    private static List<String> fileStrings(Account account) {
+        List<String> lines = new ArrayList<>();
+        account.forEachTransaction(t -> lines.add(t.toFileString()));
+        return lines;
+    }
+}
\ No newline at end of file
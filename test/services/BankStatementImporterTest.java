@@ -0,0 +1,69 @@
+package services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import models.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Kiểm tra đọc số tiền trong sao kê: số sai định dạng bị bỏ qua và báo lỗi thay vì nhập sai giá trị
+ */
+class BankStatementImporterTest {
+    @TempDir
+    Path dir;
+    
+    @Test
+    void malformedAmountsAreSkippedAndReported() throws IOException {
+        Account account = new Account("import", 0);
+        BankStatementImporter.ImportResult result = importLines(new BankStatementImporter(), account,
+            "01/03/2024,Lương,\"15,000,000.50\"",
+            "02/03/2024,Ăn trưa,-45000",
+            "03/03/2024,Hai dấu thập phân,1.234.567",
+            "04/03/2024,Ba chữ số lẻ,12.345",
+            "05/03/2024,Không có số,VND",
+            "06/03/2024,Ô trống,");
+        
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getSkipped());
+        assertEquals(4, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("Dòng 4:"));
+        assertEquals(15_000_000.50 - 45000, account.getBalance(), 0.001);
+    }
+    
+    @Test
+    void commaDecimalSeparatorAcceptsDottedThousands() throws IOException {
+        Account account = new Account("import", 0);
+        BankStatementImporter importer = new BankStatementImporter();
+        importer.setDelimiter(';');
+        importer.setDecimalSeparator(',');
+        BankStatementImporter.ImportResult result = importLines(importer, account,
+            "01/03/2024;Chuyển khoản;1.234.567,89 VND",
+            "02/03/2024;Hoàn tiền;(2.000,5)",
+            "03/03/2024;Sai;1,2,3");
+        
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getSkipped());
+        assertEquals(1_234_567.89 - 2000.50, account.getBalance(), 0.001);
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    private BankStatementImporter.ImportResult importLines(BankStatementImporter importer, Account account,
+                                                           String... lines) throws IOException {
+        List<String> content = new ArrayList<>();
+        content.add("Ngày,Mô tả,Số tiền");
+        content.addAll(Arrays.asList(lines));
+        File csv = dir.resolve("statement.csv").toFile();
+        Files.write(csv.toPath(), content, StandardCharsets.UTF_8);
+        
+        FileManager fileManager = new FileManager(dir.resolve("data").toString());
+        fileManager.setSnapshotMode(false);
+        return importer.importFile(csv, account, fileManager);
+    }
+}
\ No newline at end of file
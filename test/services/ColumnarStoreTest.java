@@ -0,0 +1,128 @@
+package services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import models.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Kiểm tra đọc file columnar qua vùng map: ID và ghi chú giải mã khi cần, chỉ mục ID / ghi chú dựng muộn
+ */
+class ColumnarStoreTest {
+    @TempDir
+    Path dir;
+    
+    @Test
+    void lazyLoadMatchesSavedAccount() throws IOException {
+        Account original = buildAccount(3000);
+        Account loaded = saveAndLoad(original);
+        
+        assertEquals(original.getTransactionCount(), loaded.getTransactionCount());
+        assertEquals(original.getBalance(), loaded.getBalance(), 0.001);
+        assertEquals(fileStrings(original), fileStrings(loaded));
+        
+        // Chỉ mục ngày, cây tổng và bộ đếm ngân sách được dựng theo ngày từ các cột
+        LocalDate from = LocalDate.of(2024, 2, 10);
+        LocalDate to = LocalDate.of(2024, 5, 20);
+        assertEquals(original.getIncomeTotal(from, to), loaded.getIncomeTotal(from, to), 0.001);
+        assertEquals(original.getExpenseTotal(from, to), loaded.getExpenseTotal(from, to), 0.001);
+        assertEquals(original.getCategoryExpenseTotal("Ăn uống", from, to),
+            loaded.getCategoryExpenseTotal("Ăn uống", from, to), 0.001);
+        assertEquals(original.getBudgetTracker().getSpent("Mua sắm", YearMonth.of(2024, 3)),
+            loaded.getBudgetTracker().getSpent("Mua sắm", YearMonth.of(2024, 3)), 0.001);
+        assertEquals(ids(original.getTransactionsByDateRange(from, to)), ids(loaded.getTransactionsByDateRange(from, to)));
+        assertEquals(original.countNoteMatches("grab"), loaded.countNoteMatches("grab"));
+        assertEquals("T0007", loaded.findTransactionById("T0007").getId());
+        assertEquals(original.getPage(TransactionPage.Order.ID_DESC, null, 50).getItems().get(49).getId(),
+            loaded.getPage(TransactionPage.Order.ID_DESC, null, 50).getItems().get(49).getId());
+    }
+    
+    @Test
+    void changesAfterLazyLoadKeepIndexesConsistent() throws IOException {
+        Account loaded = saveAndLoad(buildAccount(2000));
+        Category category = loaded.getCategoryByName("Ăn uống");
+        
+        // Thêm trước khi chỉ mục ID / ghi chú được dựng, ID tự động không trùng ID trong file
+        String id = loaded.generateTransactionId();
+        assertEquals("T2001", id);
+        loaded.addTransaction(new Expense(id, LocalDate.of(2024, 3, 1), 1000, category, "grab moi"));
+        
+        // Xóa dòng chưa giải mã: dòng cuối bảng được dời vào chỗ trống
+        for (int i = 1; i <= 2000; i += 7) {
+            assertTrue(loaded.removeTransaction(String.format("T%04d", i)));
+        }
+        assertNull(loaded.findTransactionById("T0008"));
+        assertEquals(id, loaded.searchNotes("grab", null, 1).getItems().get(0).getId());
+        
+        Set<String> ids = new HashSet<>();
+        TransactionTable table = loaded.getTable();
+        for (int row = 0; row < table.size(); row++) {
+            assertTrue(ids.add(table.getId(row)));
+            assertEquals(table.getId(row), loaded.findTransactionById(table.getId(row)).getId());
+        }
+        assertEquals(2001 - 286, ids.size());
+    }
+    
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Account account = buildAccount(100);
+        File file = dir.resolve("transactions.col").toFile();
+        long stamp = account.beginRead();
+        try {
+            ColumnarStore.write(account.getTable(), file);
+        } finally {
+            account.endRead(stamp);
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 10));
+        assertThrows(IOException.class, () -> ColumnarStore.open(file));
+    }
+    
+    // ===== HÀM HỖ TRỢ =====
+    private Account saveAndLoad(Account account) {
+        FileManager writer = new FileManager(dir.toString());
+        writer.setSnapshotMode(false);
+        writer.setColumnarMode(true);
+        writer.saveData(account);
+        
+        FileManager reader = new FileManager(dir.toString());
+        reader.setSnapshotMode(false);
+        return reader.loadData();
+    }
+    
+    private static Account buildAccount(int size) {
+        Account account = new Account("columnar", 500000);
+        Random random = new Random(size);
+        List<Category> categories = account.getCategories();
+        for (int i = 0; i < size; i++) {
+            Category category = categories.get(random.nextInt(categories.size()));
+            LocalDate date = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(200));
+            String note = (i % 5 == 0 ? "Grab đi làm " : "Tiền ăn ") + i;
+            String id = account.generateTransactionId();
+            account.addTransaction(category.getType().equals("THU")
+                ? new Income(id, date, 1000 + i, category, note)
+                : new Expense(id, date, 1000 + i, category, note));
+        }
+        return account;
+    }
+    
+    private static Set<String> ids(List<Transaction> transactions) {
+        Set<String> ids = new HashSet<>();
+        transactions.forEach(t -> ids.add(t.getId()));
+        return ids;
+    }
+    
+    private static List<String> fileStrings(Account account) {
+        List<String> lines = new ArrayList<>();
+        account.forEachTransaction(t -> lines.add(t.toFileString()));
+        return lines;
+    }
+}
\ No newline at end of file
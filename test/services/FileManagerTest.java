@@ -0,0 +1,40 @@
+package services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import models.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Kiểm tra file text ghi thẳng từ các cột của bảng giao dịch
+ */
+class FileManagerTest {
+    @TempDir
+    Path dir;
+    
+    @Test
+    void negativeAmountsKeepTheirSign() throws IOException {
+        Account account = new Account("âm", 0);
+        Category category = account.getCategoryByName("Ăn uống");
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        account.addTransaction(new Expense("T0001", date, -0.5, category, "hoàn"));
+        account.addTransaction(new Expense("T0002", date, -1.5, category, "hoàn"));
+        account.addTransaction(new Expense("T0003", date, 1234.05, category, "ăn"));
+        
+        FileManager fileManager = new FileManager(dir.toString());
+        fileManager.setSnapshotMode(false);
+        fileManager.saveData(account);
+        
+        List<String> lines = Files.readAllLines(dir.resolve("transactions.txt"), StandardCharsets.UTF_8);
+        assertEquals("CHI|T0001|2024-03-01|-0.50|Ăn uống|hoàn", lines.get(0));
+        assertEquals("CHI|T0002|2024-03-01|-1.50|Ăn uống|hoàn", lines.get(1));
+        assertEquals("CHI|T0003|2024-03-01|1234.05|Ăn uống|ăn", lines.get(2));
+    }
+}
\ No newline at end of file